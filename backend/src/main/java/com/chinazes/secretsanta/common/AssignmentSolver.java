@@ -0,0 +1,186 @@
+package com.chinazes.secretsanta.common;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+/**
+ * Finds a derangement of 0..n-1 that respects per-gifter forbidden receivers,
+ * as a perfect matching in the bipartite gifter/receiver graph.
+ *
+ * A randomized greedy pass (most constrained gifters first, random receiver choice)
+ * matches almost everyone; the remaining gifters are matched through augmenting
+ * paths. The search walks the complement of the forbidden sets, so each search costs
+ * O(n + forbidden pairs) no matter how dense the allowed graph is. A gifter with no
+ * augmenting path proves that no perfect matching exists, so infeasible inputs are
+ * reported after one failed search instead of retrying.
+ *
+ * The result is random but, unlike Derangements.uniform, not uniformly distributed.
+ */
+public final class AssignmentSolver {
+
+    private static final int GREEDY_PROBES = 8;
+
+    private AssignmentSolver() {}
+
+    /**
+     * @param forbidden forbidden[i] holds receivers gifter i must not get; null means none.
+     *                  Self-assignment is always forbidden.
+     * @return receiver index for every gifter
+     * @throws InfeasibleAssignmentException when the constraints cannot be satisfied
+     */
+    public static int[] solve(BitSet[] forbidden, SplittableRandom random) {
+        int n = forbidden.length;
+        if (n < 2) {
+            throw new IllegalArgumentException("At least two participants are required, got " + n);
+        }
+        BitSet none = new BitSet();
+        BitSet[] excluded = new BitSet[n];
+        int[] allowedCount = new int[n];
+        int[] blockedCount = new int[n];
+        for (int i = 0; i < n; i++) {
+            excluded[i] = forbidden[i] != null ? forbidden[i] : none;
+            if (excluded[i].length() > n) {
+                throw new IllegalArgumentException("Forbidden receiver out of range for gifter " + i);
+            }
+            int blocked = excluded[i].cardinality() - (excluded[i].get(i) ? 1 : 0);
+            allowedCount[i] = n - 1 - blocked;
+            if (allowedCount[i] == 0) {
+                throw new InfeasibleAssignmentException("Participant #" + i + " is excluded from every receiver");
+            }
+            for (int r = excluded[i].nextSetBit(0); r >= 0; r = excluded[i].nextSetBit(r + 1)) {
+                if (r != i) {
+                    blockedCount[r]++;
+                }
+            }
+        }
+        for (int r = 0; r < n; r++) {
+            if (blockedCount[r] == n - 1) {
+                throw new InfeasibleAssignmentException("Participant #" + r + " is excluded by every gifter");
+            }
+        }
+
+        int[] receiverOf = new int[n];
+        int[] gifterOf = new int[n];
+        Arrays.fill(receiverOf, -1);
+        Arrays.fill(gifterOf, -1);
+        BitSet freeReceivers = new BitSet(n);
+        freeReceivers.set(0, n);
+
+        for (int gifter : mostConstrainedFirst(allowedCount, random)) {
+            int receiver = pickGreedy(gifter, n, excluded[gifter], freeReceivers, random);
+            if (receiver >= 0) {
+                receiverOf[gifter] = receiver;
+                gifterOf[receiver] = gifter;
+                freeReceivers.clear(receiver);
+            }
+        }
+
+        int[] queue = new int[n];
+        int[] previousGifter = new int[n];
+        BitSet unvisited = new BitSet(n);
+        for (int gifter = 0; gifter < n; gifter++) {
+            if (receiverOf[gifter] < 0) {
+                augment(gifter, excluded, receiverOf, gifterOf, queue, previousGifter, unvisited, random);
+            }
+        }
+        return receiverOf;
+    }
+
+    /**
+     * Shuffle gifters, then bucket them by number of allowed receivers so the
+     * greedy pass does not waste the only options of heavily constrained gifters.
+     */
+    private static int[] mostConstrainedFirst(int[] allowedCount, SplittableRandom random) {
+        int n = allowedCount.length;
+        int[] shuffled = new int[n];
+        for (int i = 0; i < n; i++) {
+            int j = random.nextInt(i + 1);
+            shuffled[i] = shuffled[j];
+            shuffled[j] = i;
+        }
+        int[] bucketStart = new int[n + 1];
+        for (int count : allowedCount) {
+            bucketStart[count + 1]++;
+        }
+        for (int c = 1; c <= n; c++) {
+            bucketStart[c] += bucketStart[c - 1];
+        }
+        int[] order = new int[n];
+        for (int gifter : shuffled) {
+            order[bucketStart[allowedCount[gifter]]++] = gifter;
+        }
+        return order;
+    }
+
+    private static int pickGreedy(int gifter, int n, BitSet excluded, BitSet freeReceivers, SplittableRandom random) {
+        for (int probe = 0; probe < GREEDY_PROBES; probe++) {
+            int r = random.nextInt(n);
+            if (r != gifter && freeReceivers.get(r) && !excluded.get(r)) {
+                return r;
+            }
+        }
+        int start = random.nextInt(n);
+        for (int r = freeReceivers.nextSetBit(start); r >= 0; r = freeReceivers.nextSetBit(r + 1)) {
+            if (r != gifter && !excluded.get(r)) {
+                return r;
+            }
+        }
+        for (int r = freeReceivers.nextSetBit(0); r >= 0 && r < start; r = freeReceivers.nextSetBit(r + 1)) {
+            if (r != gifter && !excluded.get(r)) {
+                return r;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Breadth-first search for an alternating path from a free gifter to a free receiver.
+     * Receivers are taken from the unvisited set, so every receiver is dequeued once
+     * and skipped candidates are always forbidden pairs.
+     */
+    private static void augment(int root, BitSet[] excluded, int[] receiverOf, int[] gifterOf,
+                                int[] queue, int[] previousGifter, BitSet unvisited, SplittableRandom random) {
+        int n = receiverOf.length;
+        unvisited.set(0, n);
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = root;
+        int offset = random.nextInt(n);
+
+        while (head < tail) {
+            int gifter = queue[head++];
+            BitSet blocked = excluded[gifter];
+            for (int pass = 0; pass < 2; pass++) {
+                int from = pass == 0 ? offset : 0;
+                int to = pass == 0 ? n : offset;
+                for (int r = unvisited.nextSetBit(from); r >= 0 && r < to; r = unvisited.nextSetBit(r + 1)) {
+                    if (r == gifter || blocked.get(r)) {
+                        continue;
+                    }
+                    unvisited.clear(r);
+                    previousGifter[r] = gifter;
+                    if (gifterOf[r] < 0) {
+                        flip(r, receiverOf, gifterOf, previousGifter);
+                        return;
+                    }
+                    queue[tail++] = gifterOf[r];
+                }
+            }
+        }
+        // Every gifter reached from root competes for the receivers reached — one too few (Hall's condition)
+        throw new InfeasibleAssignmentException(
+                tail + " participants can only give to " + (tail - 1) + " receivers under the current exclusions");
+    }
+
+    private static void flip(int receiver, int[] receiverOf, int[] gifterOf, int[] previousGifter) {
+        int r = receiver;
+        while (r >= 0) {
+            int gifter = previousGifter[r];
+            int next = receiverOf[gifter];
+            receiverOf[gifter] = r;
+            gifterOf[r] = gifter;
+            r = next;
+        }
+    }
+}
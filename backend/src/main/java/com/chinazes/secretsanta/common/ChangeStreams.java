@@ -0,0 +1,31 @@
+package com.chinazes.secretsanta.common;
+
+import com.mongodb.MongoException;
+
+/**
+ * Helpers shared by the change stream tailers.
+ */
+public final class ChangeStreams {
+
+    // ChangeStreamFatalError, ChangeStreamHistoryLost
+    private static final int FATAL_ERROR = 280;
+    private static final int HISTORY_LOST = 286;
+
+    private ChangeStreams() {
+    }
+
+    /**
+     * Whether the server rejected the resume token because it is no longer in the oplog.
+     * Only then does a tailer have to give up its position and start from now;
+     * any other failure resumes from the token it holds.
+     */
+    public static boolean isHistoryLost(Throwable error) {
+        for (Throwable e = error; e != null; e = e.getCause()) {
+            if (e instanceof MongoException mongo
+                    && (mongo.getCode() == HISTORY_LOST || mongo.getCode() == FATAL_ERROR)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
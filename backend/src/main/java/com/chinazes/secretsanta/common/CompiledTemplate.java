@@ -0,0 +1,103 @@
+package com.chinazes.secretsanta.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Text template split once into literal and placeholder segments.
+ * Placeholders look like {{name}}; values are HTML-escaped when rendered.
+ */
+public final class CompiledTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    private final String name;
+    private final String[] literals;
+    private final String[] placeholders;
+    private final int literalLength;
+
+    private CompiledTemplate(String name, List<String> literals, List<String> placeholders) {
+        this.name = name;
+        this.literals = literals.toArray(new String[0]);
+        this.placeholders = placeholders.toArray(new String[0]);
+        this.literalLength = literals.stream().mapToInt(String::length).sum();
+    }
+
+    /**
+     * Parse template source. Fails on an unterminated or empty placeholder.
+     */
+    public static CompiledTemplate compile(String name, String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+        int pos = 0;
+        while (true) {
+            int open = source.indexOf(OPEN, pos);
+            if (open < 0) {
+                literals.add(source.substring(pos));
+                break;
+            }
+            int close = source.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                throw new IllegalArgumentException("Unterminated placeholder in template " + name + " at " + open);
+            }
+            String placeholder = source.substring(open + OPEN.length(), close).trim();
+            if (placeholder.isEmpty()) {
+                throw new IllegalArgumentException("Empty placeholder in template " + name + " at " + open);
+            }
+            literals.add(source.substring(pos, open));
+            placeholders.add(placeholder);
+            pos = close + CLOSE.length();
+        }
+        return new CompiledTemplate(name, literals, placeholders);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Length of the template without placeholders, useful for sizing buffers.
+     */
+    public int getLiteralLength() {
+        return literalLength;
+    }
+
+    public List<String> getPlaceholders() {
+        return List.of(placeholders);
+    }
+
+    /**
+     * Append the rendered template to out. Missing values render as empty.
+     */
+    public void renderTo(StringBuilder out, Map<String, ?> values) {
+        for (int i = 0; i < placeholders.length; i++) {
+            out.append(literals[i]);
+            Object value = values.get(placeholders[i]);
+            if (value != null) {
+                appendEscaped(out, value.toString());
+            }
+        }
+        out.append(literals[placeholders.length]);
+    }
+
+    private static void appendEscaped(StringBuilder out, String value) {
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            String replacement = switch (value.charAt(i)) {
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '&' -> "&amp;";
+                case '"' -> "&quot;";
+                case '\'' -> "&#39;";
+                default -> null;
+            };
+            if (replacement != null) {
+                out.append(value, start, i).append(replacement);
+                start = i + 1;
+            }
+        }
+        out.append(value, start, value.length());
+    }
+}
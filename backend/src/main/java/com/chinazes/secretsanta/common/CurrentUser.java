@@ -0,0 +1,25 @@
+package com.chinazes.secretsanta.common;
+
+import com.chinazes.secretsanta.models.AuthenticatedUser;
+import com.chinazes.secretsanta.models.User;
+
+/**
+ * Resolves the user id of an authenticated principal of either kind.
+ */
+public final class CurrentUser {
+
+    private CurrentUser() {}
+
+    /**
+     * User id of the principal, or null when it carries none.
+     */
+    public static String idOf(Object principal) {
+        if (principal instanceof User user) {
+            return user.getId();
+        }
+        if (principal instanceof AuthenticatedUser user) {
+            return user.getId();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,92 @@
+package com.chinazes.secretsanta.common;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random derangements of 0..n-1 on primitive arrays, in expected linear time.
+ * A result p maps each index i to p[i] != i.
+ */
+public final class Derangements {
+
+    private Derangements() {}
+
+    /**
+     * Uniformly random derangement (Martínez, Panholzer, Prodinger 2008).
+     * Walks the array from the end, swapping each unmarked element with a random
+     * unmarked one before it, and closes a cycle with the exact probability that
+     * keeps every derangement equally likely. Expected 2n random draws.
+     */
+    public static int[] uniform(int n, SplittableRandom random) {
+        requireSize(n);
+        int[] perm = identity(n);
+        boolean[] marked = new boolean[n];
+        double[] closeProbability = closeProbabilities(n);
+
+        int unmarked = n;
+        for (int i = n - 1; unmarked >= 2; i--) {
+            if (marked[i]) {
+                continue;
+            }
+            int j;
+            do {
+                j = random.nextInt(i);
+            } while (marked[j]);
+            int tmp = perm[i];
+            perm[i] = perm[j];
+            perm[j] = tmp;
+            if (random.nextDouble() < closeProbability[unmarked]) {
+                marked[j] = true;
+                unmarked--;
+            }
+            unmarked--;
+        }
+        return perm;
+    }
+
+    /**
+     * Uniformly random permutation consisting of a single n-cycle (Sattolo's algorithm),
+     * so following the assignments visits every player exactly once.
+     */
+    public static int[] singleCycle(int n, SplittableRandom random) {
+        requireSize(n);
+        int[] perm = identity(n);
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i);
+            int tmp = perm[i];
+            perm[i] = perm[j];
+            perm[j] = tmp;
+        }
+        return perm;
+    }
+
+    /**
+     * q[u] = (u - 1) * D(u - 2) / D(u), the chance that a swap closes a cycle with u
+     * elements left. Derangement numbers overflow quickly, so only ratios
+     * r(u) = D(u - 1) / D(u) = 1 / ((u - 1) * (1 + r(u - 1))) are tracked.
+     */
+    private static double[] closeProbabilities(int n) {
+        double[] q = new double[n + 1];
+        q[2] = 1.0;
+        double previous = 0.0; // r(2) = D(1) / D(2)
+        for (int u = 3; u <= n; u++) {
+            double current = 1.0 / ((u - 1) * (1.0 + previous));
+            q[u] = (u - 1) * previous * current;
+            previous = current;
+        }
+        return q;
+    }
+
+    private static int[] identity(int n) {
+        int[] perm = new int[n];
+        for (int i = 0; i < n; i++) {
+            perm[i] = i;
+        }
+        return perm;
+    }
+
+    private static void requireSize(int n) {
+        if (n < 2) {
+            throw new IllegalArgumentException("At least two participants are required, got " + n);
+        }
+    }
+}
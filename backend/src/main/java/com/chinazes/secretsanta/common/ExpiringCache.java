@@ -0,0 +1,182 @@
+package com.chinazes.secretsanta.common;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Bounded in-memory cache with per-entry expiry.
+ * When the size limit is reached expired entries are swept first, then arbitrary
+ * entries are dropped until the cache is back under its limit.
+ */
+public class ExpiringCache<K, V> {
+
+    public static final long NO_EXPIRY = Long.MAX_VALUE;
+
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final int maxSize;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ExpiringCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Get a live value or null when absent or expired.
+     */
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            if (entries.remove(key, entry)) {
+                evictions.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    /**
+     * Get a live value or load and store it with the given time to live.
+     * Null results are not cached.
+     */
+    public V getOrLoad(K key, Function<? super K, ? extends V> loader, long ttlMillis) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        value = loader.apply(key);
+        if (value != null) {
+            put(key, value, expiryFromNow(ttlMillis));
+        }
+        return value;
+    }
+
+    /**
+     * Store a value that never expires on its own.
+     */
+    public void put(K key, V value) {
+        put(key, value, NO_EXPIRY);
+    }
+
+    /**
+     * Store a value that expires at the given epoch millisecond.
+     */
+    public void put(K key, V value, long expiresAtMillis) {
+        entries.put(key, new Entry<>(value, expiresAtMillis));
+        if (entries.size() > maxSize) {
+            evict();
+        }
+    }
+
+    /**
+     * Store a value unless a live one is already present. Returns true if stored.
+     */
+    public boolean putIfAbsent(K key, V value, long expiresAtMillis) {
+        long now = System.currentTimeMillis();
+        Entry<V> created = new Entry<>(value, expiresAtMillis);
+        Entry<V> current = entries.compute(key, (k, existing) ->
+                existing == null || existing.isExpired(now) ? created : existing);
+        if (current != created) {
+            return false;
+        }
+        if (entries.size() > maxSize) {
+            evict();
+        }
+        return true;
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Remove an entry and return its value, expired or not.
+     */
+    public V remove(K key) {
+        Entry<V> entry = entries.remove(key);
+        return entry != null ? entry.value : null;
+    }
+
+    public void invalidateIf(Predicate<? super K> predicate) {
+        entries.keySet().removeIf(predicate);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Counters for sizing the cache.
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", entries.size());
+        stats.put("maxSize", maxSize);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("evictions", evictions.sum());
+        return stats;
+    }
+
+    private void evict() {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                if (it.next().getValue().isExpired(now)) {
+                    it.remove();
+                    evictions.increment();
+                }
+            }
+
+            // Leave some headroom so the next few puts do not trigger another pass
+            int target = maxSize - maxSize / 10;
+            it = entries.entrySet().iterator();
+            while (entries.size() > target && it.hasNext()) {
+                it.next();
+                it.remove();
+                evictions.increment();
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private static long expiryFromNow(long ttlMillis) {
+        if (ttlMillis == NO_EXPIRY) {
+            return NO_EXPIRY;
+        }
+        return System.currentTimeMillis() + ttlMillis;
+    }
+
+    private record Entry<V>(V value, long expiresAtMillis) {
+        boolean isExpired(long now) {
+            return expiresAtMillis <= now;
+        }
+    }
+}
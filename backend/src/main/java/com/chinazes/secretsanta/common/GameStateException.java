@@ -0,0 +1,15 @@
+package com.chinazes.secretsanta.common;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when a game operation does not fit the current game status.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class GameStateException extends RuntimeException {
+
+    public GameStateException(String message) {
+        super(message);
+    }
+}
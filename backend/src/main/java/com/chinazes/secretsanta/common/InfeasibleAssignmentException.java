@@ -0,0 +1,15 @@
+package com.chinazes.secretsanta.common;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when pairing constraints leave no valid Secret Santa assignment.
+ */
+@ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+public class InfeasibleAssignmentException extends RuntimeException {
+
+    public InfeasibleAssignmentException(String message) {
+        super(message);
+    }
+}
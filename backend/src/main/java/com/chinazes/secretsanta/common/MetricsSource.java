@@ -0,0 +1,16 @@
+package com.chinazes.secretsanta.common;
+
+import java.util.Map;
+
+/**
+ * Component that exposes runtime counters on the admin metrics endpoint.
+ */
+public interface MetricsSource {
+
+    /**
+     * Section name in the metrics response.
+     */
+    String getMetricsName();
+
+    Map<String, Object> getMetrics();
+}
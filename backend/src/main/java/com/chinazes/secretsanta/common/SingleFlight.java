@@ -0,0 +1,139 @@
+package com.chinazes.secretsanta.common;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Coalesces concurrent loads of the same key into one call.
+ * The first caller runs the loader, everyone arriving while it runs waits for its
+ * result, and the result is reused for a short freshness window afterwards.
+ * Failures are shared with the waiting callers but never reused.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, Call<V>> calls = new ConcurrentHashMap<>();
+    private final long freshnessNanos;
+    private final int sweepThreshold;
+
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public SingleFlight(long freshnessMillis, int sweepThreshold) {
+        this.freshnessNanos = TimeUnit.MILLISECONDS.toNanos(freshnessMillis);
+        this.sweepThreshold = sweepThreshold;
+    }
+
+    /**
+     * Get the value for key, joining an in-flight or fresh load when there is one.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        long now = System.nanoTime();
+        @SuppressWarnings("unchecked")
+        Call<V>[] created = new Call[1];
+        Call<V> call = calls.compute(key, (k, existing) -> {
+            if (existing != null && existing.isUsable(now, freshnessNanos)) {
+                return existing;
+            }
+            created[0] = new Call<>();
+            return created[0];
+        });
+
+        if (call != created[0]) {
+            coalesced.increment();
+            return call.await();
+        }
+
+        loads.increment();
+        try {
+            V value = loader.apply(key);
+            call.complete(value);
+            if (freshnessNanos == 0) {
+                calls.remove(key, call);
+            }
+            return value;
+        } catch (RuntimeException | Error e) {
+            failures.increment();
+            calls.remove(key, call);
+            call.fail(e);
+            throw e;
+        } finally {
+            if (calls.size() > sweepThreshold) {
+                sweep();
+            }
+        }
+    }
+
+    /**
+     * Forget a finished result so the next caller loads fresh data, e.g. after a write.
+     */
+    public void invalidate(K key) {
+        calls.computeIfPresent(key, (k, call) -> call.isDone() ? null : call);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("keys", calls.size());
+        stats.put("loads", loads.sum());
+        stats.put("coalesced", coalesced.sum());
+        stats.put("failures", failures.sum());
+        return stats;
+    }
+
+    private void sweep() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<K, Call<V>>> it = calls.entrySet().iterator();
+        while (it.hasNext()) {
+            if (!it.next().getValue().isUsable(now, freshnessNanos)) {
+                it.remove();
+            }
+        }
+    }
+
+    private static final class Call<V> {
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+        private volatile long completedAtNanos;
+
+        boolean isDone() {
+            return future.isDone();
+        }
+
+        boolean isUsable(long now, long freshnessNanos) {
+            if (!future.isDone()) {
+                return true;
+            }
+            return !future.isCompletedExceptionally() && now - completedAtNanos < freshnessNanos;
+        }
+
+        void complete(V value) {
+            completedAtNanos = System.nanoTime();
+            future.complete(value);
+        }
+
+        void fail(Throwable error) {
+            completedAtNanos = System.nanoTime();
+            future.completeExceptionally(error);
+        }
+
+        V await() {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw e;
+            }
+        }
+    }
+}
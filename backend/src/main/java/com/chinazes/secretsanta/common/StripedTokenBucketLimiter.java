@@ -0,0 +1,126 @@
+package com.chinazes.secretsanta.common;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Token-bucket rate limiter keyed by string.
+ * Buckets are spread over lock-protected stripes; each stripe is an LRU map with
+ * a fixed capacity, so idle keys are evicted and memory stays bounded.
+ */
+public class StripedTokenBucketLimiter {
+
+    private final Stripe[] stripes;
+    private final int mask;
+    private final double capacity;
+    private final double refillPerNano;
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param capacity        burst size
+     * @param refillPerMinute tokens added per minute
+     * @param maxKeys         upper bound of tracked keys across all stripes
+     * @param stripeCount     number of lock stripes, rounded up to a power of two
+     */
+    public StripedTokenBucketLimiter(int capacity, int refillPerMinute, int maxKeys, int stripeCount) {
+        int stripesPow2 = Integer.highestOneBit(Math.max(1, stripeCount - 1) << 1);
+        this.stripes = new Stripe[stripesPow2];
+        this.mask = stripesPow2 - 1;
+        int perStripe = Math.max(1, maxKeys / stripesPow2);
+        for (int i = 0; i < stripesPow2; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+        this.capacity = capacity;
+        this.refillPerNano = refillPerMinute / 60_000_000_000d;
+    }
+
+    /**
+     * Take one token for the key.
+     */
+    public boolean tryAcquire(String key) {
+        long now = System.nanoTime();
+        Stripe stripe = stripes[spread(key.hashCode()) & mask];
+        boolean acquired;
+        stripe.lock.lock();
+        try {
+            Bucket bucket = stripe.buckets.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(capacity, now);
+                stripe.buckets.put(key, bucket);
+            } else {
+                bucket.tokens = Math.min(capacity, bucket.tokens + (now - bucket.updatedAt) * refillPerNano);
+                bucket.updatedAt = now;
+            }
+            acquired = bucket.tokens >= 1;
+            if (acquired) {
+                bucket.tokens -= 1;
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+        (acquired ? allowed : rejected).increment();
+        return acquired;
+    }
+
+    /**
+     * Seconds until the next token is available for an empty bucket.
+     */
+    public long getRetryAfterSeconds() {
+        return Math.max(1, (long) Math.ceil(1 / (refillPerNano * 1_000_000_000d)));
+    }
+
+    public Map<String, Object> stats() {
+        int keys = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                keys += stripe.buckets.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("keys", keys);
+        stats.put("allowed", allowed.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("evictions", evictions.sum());
+        return stats;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static final class Bucket {
+        double tokens;
+        long updatedAt;
+
+        Bucket(double tokens, long updatedAt) {
+            this.tokens = tokens;
+            this.updatedAt = updatedAt;
+        }
+    }
+
+    private final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        final LinkedHashMap<String, Bucket> buckets;
+
+        Stripe(int maxKeys) {
+            this.buckets = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                    if (size() > maxKeys) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.chinazes.secretsanta.config;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Request wrapper that reads up to a limit of the body up front so filters can inspect it
+ * and controllers can still read the whole body afterwards.
+ * Bodies longer than the limit are served as the buffered prefix followed by the rest of the original stream.
+ */
+class CachedBodyRequest extends HttpServletRequestWrapper {
+
+    private final byte[] prefix;
+    private final boolean complete;
+
+    CachedBodyRequest(HttpServletRequest request, int maxBytes) throws IOException {
+        super(request);
+        this.prefix = request.getInputStream().readNBytes(maxBytes + 1);
+        this.complete = prefix.length <= maxBytes;
+    }
+
+    /**
+     * The whole body, or null when it is longer than the inspection limit.
+     */
+    byte[] getBody() {
+        return complete ? prefix : null;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+        ByteArrayInputStream buffered = new ByteArrayInputStream(prefix);
+        ServletInputStream rest = complete ? null : super.getInputStream();
+        return new ServletInputStream() {
+            @Override
+            public boolean isFinished() {
+                return buffered.available() == 0 && (rest == null || rest.isFinished());
+            }
+
+            @Override
+            public boolean isReady() {
+                return buffered.available() > 0 || rest == null || rest.isReady();
+            }
+
+            @Override
+            public void setReadListener(ReadListener listener) {
+                if (rest != null) {
+                    rest.setReadListener(listener);
+                    return;
+                }
+                // Everything is already in memory
+                try {
+                    if (buffered.available() > 0) {
+                        listener.onDataAvailable();
+                    }
+                    listener.onAllDataRead();
+                } catch (IOException e) {
+                    listener.onError(e);
+                }
+            }
+
+            @Override
+            public int read() throws IOException {
+                int b = buffered.read();
+                return b >= 0 || rest == null ? b : rest.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (len == 0) {
+                    return 0;
+                }
+                if (buffered.available() > 0) {
+                    return buffered.read(b, off, len);
+                }
+                return rest == null ? -1 : rest.read(b, off, len);
+            }
+        };
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+        Charset charset = getCharacterEncoding() != null
+                ? Charset.forName(getCharacterEncoding())
+                : StandardCharsets.UTF_8;
+        return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+    }
+}
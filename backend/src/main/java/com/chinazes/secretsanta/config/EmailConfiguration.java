@@ -11,17 +11,29 @@ import java.util.Properties;
 @Configuration
 public class EmailConfiguration {
 
+    @Value("${spring.mail.host:smtp.gmail.com}")
+    private String emailHost;
+
+    @Value("${spring.mail.port:587}")
+    private int emailPort;
+
     @Value("${spring.mail.username}")
     private String emailUsername;
 
     @Value("${spring.mail.password}")
     private String emailPassword;
 
+    @Value("${mail.debug:false}")
+    private boolean mailDebug;
+
+    @Value("${mail.smtp.timeout:10000}")
+    private int smtpTimeout;
+
     @Bean
     public JavaMailSender javaMailSender() {
         JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
-        mailSender.setHost("smtp.gmail.com");
-        mailSender.setPort(587);
+        mailSender.setHost(emailHost);
+        mailSender.setPort(emailPort);
         mailSender.setUsername(emailUsername);
         mailSender.setPassword(emailPassword);
 
@@ -29,7 +41,11 @@ public class EmailConfiguration {
         props.put("mail.transport.protocol", "smtp");
         props.put("mail.smtp.auth", "true");
         props.put("mail.smtp.starttls.enable", "true");
-        props.put("mail.debug", "true");
+        props.put("mail.debug", String.valueOf(mailDebug));
+        // A hung mail server must not stall the outbox dispatcher forever
+        props.put("mail.smtp.connectiontimeout", String.valueOf(smtpTimeout));
+        props.put("mail.smtp.timeout", String.valueOf(smtpTimeout));
+        props.put("mail.smtp.writetimeout", String.valueOf(smtpTimeout));
 
         return mailSender;
     }
@@ -1,10 +1,16 @@
 package com.chinazes.secretsanta.config;
 
+import com.chinazes.secretsanta.models.AuthenticatedUser;
+import com.chinazes.secretsanta.models.User;
 import com.chinazes.secretsanta.services.JwtService;
+import com.chinazes.secretsanta.ws.ChatWebSocketHandler;
+import com.chinazes.secretsanta.services.SecurityEpochRegistry;
+import com.chinazes.secretsanta.services.VerifiedToken;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -27,15 +33,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final HandlerExceptionResolver handlerExceptionResolver;
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final SecurityEpochRegistry securityEpochRegistry;
+    private final boolean statelessPrincipal;
 
     public JwtAuthenticationFilter(
             JwtService jwtService,
             UserDetailsService userDetailsService,
-            HandlerExceptionResolver handlerExceptionResolver
+            SecurityEpochRegistry securityEpochRegistry,
+            HandlerExceptionResolver handlerExceptionResolver,
+            @Value("${security.jwt.stateless-principal:false}") boolean statelessPrincipal
     ) {
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
+        this.securityEpochRegistry = securityEpochRegistry;
         this.handlerExceptionResolver = handlerExceptionResolver;
+        this.statelessPrincipal = statelessPrincipal;
     }
 
     @Override
@@ -44,9 +56,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             @NonNull HttpServletResponse response,
             @NonNull FilterChain filterChain
     ) throws ServletException, IOException {
-        final String authHeader = request.getHeader("Authorization");
+        final String jwt = extractToken(request);
 
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+        if (jwt == null) {
             filterChain.doFilter(request, response);
             return;
         }
@@ -61,15 +73,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
          */
 
         try {
-            final String jwt = authHeader.substring(7);
-            final String userEmail = jwtService.extractUsername(jwt);
+            final VerifiedToken token = jwtService.verify(jwt);
+            final String userEmail = token.getSubject();
 
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
             if (userEmail != null && authentication == null) {
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
+                UserDetails userDetails = resolvePrincipal(token);
 
-                if (jwtService.isTokenValid(jwt, userDetails)) {
+                if (userDetails != null && jwtService.isTokenValid(token, userDetails)) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             userDetails,
                             null,
@@ -86,4 +98,50 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             handlerExceptionResolver.resolveException(request, response, null, exception);
         }
     }
+
+    /**
+     * Bearer token from the Authorization header. Browsers cannot set headers on a
+     * WebSocket handshake, so /api/ws/ requests pass it as the second entry of
+     * Sec-WebSocket-Protocol ("bearer, <token>"). Unlike a query parameter, the header
+     * does not end up in proxy access logs.
+     */
+    private String extractToken(HttpServletRequest request) {
+        final String authHeader = request.getHeader("Authorization");
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            return authHeader.substring(7);
+        }
+        if (request.getRequestURI().startsWith(request.getContextPath() + "/api/ws/")) {
+            String protocols = request.getHeader("Sec-WebSocket-Protocol");
+            if (protocols == null) {
+                return null;
+            }
+            String[] entries = protocols.split(",");
+            if (entries.length == 2 && ChatWebSocketHandler.TOKEN_PROTOCOL.equals(entries[0].trim())) {
+                String token = entries[1].trim();
+                return token.isEmpty() ? null : token;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Build principal from token claims when possible, otherwise load the user.
+     * Returns null if the token was issued before the user's current security epoch.
+     */
+    private UserDetails resolvePrincipal(VerifiedToken token) {
+        if (statelessPrincipal && token.isSelfContained()
+                && !securityEpochRegistry.isStale(token.getUserId(), token.getSecurityEpoch())) {
+            return new AuthenticatedUser(token.getUserId(), token.getSubject(), token.getRole(), token.getSecurityEpoch());
+        }
+
+        UserDetails userDetails = this.userDetailsService.loadUserByUsername(token.getSubject());
+        if (userDetails instanceof User user) {
+            securityEpochRegistry.record(user.getId(), user.getSecurityEpoch());
+            Long tokenEpoch = token.getSecurityEpoch();
+            if (tokenEpoch != null && tokenEpoch < user.getSecurityEpoch()) {
+                return null;
+            }
+        }
+        return userDetails;
+    }
 }
@@ -0,0 +1,26 @@
+package com.chinazes.secretsanta.config;
+
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Stable name of this backend instance, used as owner of leases in Mongo.
+ * Pod hostname when running in Kubernetes, random otherwise.
+ */
+@Component
+public class NodeIdentity {
+
+    private final String id;
+
+    public NodeIdentity() {
+        String hostname = System.getenv("HOSTNAME");
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        // Suffix keeps a restarted pod with the same name from inheriting stale leases
+        this.id = (hostname != null && !hostname.isBlank() ? hostname : "node") + "-" + suffix;
+    }
+
+    public String getId() {
+        return id;
+    }
+}
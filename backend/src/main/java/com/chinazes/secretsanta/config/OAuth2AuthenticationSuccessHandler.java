@@ -1,8 +1,8 @@
 package com.chinazes.secretsanta.config;
 
 import com.chinazes.secretsanta.models.User;
-import com.chinazes.secretsanta.repositories.UserRepository;
 import com.chinazes.secretsanta.services.JwtService;
+import com.chinazes.secretsanta.services.OAuthLoginService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -18,17 +18,16 @@ import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Optional;
 
 @Component
 public class OAuth2AuthenticationSuccessHandler implements AuthenticationSuccessHandler {
 
-    private final UserRepository userRepository;
+    private final OAuthLoginService oAuthLoginService;
     private final JwtService jwtService;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
-    public OAuth2AuthenticationSuccessHandler(UserRepository userRepository, JwtService jwtService) {
-        this.userRepository = userRepository;
+    public OAuth2AuthenticationSuccessHandler(OAuthLoginService oAuthLoginService, JwtService jwtService) {
+        this.oAuthLoginService = oAuthLoginService;
         this.jwtService = jwtService;
     }
 
@@ -63,68 +62,7 @@ public class OAuth2AuthenticationSuccessHandler implements AuthenticationSuccess
         Object googlePic = oauth2User.getAttributes().get("picture");
         if (picture == null && googlePic != null) picture = googlePic.toString();
 
-        final String finalEmail = email;
-        final String finalName = name;
-        final String finalPicture = picture;
-        final String finalRegistrationId = registrationId;
-        final OAuth2User finalOauth2User = oauth2User;
-
-        // 1. Сначала ищем по OAuth провайдеру и ID (самый надежный способ)
-        Optional<User> existingByOAuth = Optional.empty();
-        try {
-            System.out.println("Searching for user with provider: " + registrationId + " and providerId: " + oauth2User.getName());
-            existingByOAuth = userRepository.findByAuthProvidersProviderAndAuthProvidersProviderId(registrationId, oauth2User.getName());
-            if (existingByOAuth.isPresent()) {
-                System.out.println("Found existing user by OAuth: " + existingByOAuth.get().getId());
-            } else {
-                System.out.println("No user found by OAuth provider and ID");
-            }
-        } catch (Exception e) {
-            // Если метод не найден или есть проблема с базой, игнорируем
-            System.err.println("Warning: Could not search by OAuth provider and ID: " + e.getMessage());
-            e.printStackTrace();
-        }
-
-        // 2. Если не найден по OAuth, ищем по email
-        Optional<User> existingByEmail = Optional.empty();
-        if (existingByOAuth.isEmpty()) {
-            System.out.println("Searching for user by email: " + finalEmail);
-            existingByEmail = userRepository.findByEmail(finalEmail);
-            if (existingByEmail.isPresent()) {
-                System.out.println("Found existing user by email: " + existingByEmail.get().getId());
-            } else {
-                System.out.println("No user found by email");
-            }
-        }
-
-        // 3. Берем найденного пользователя или создаем нового
-        User user = existingByOAuth.orElse(existingByEmail.orElseGet(() -> {
-            User u = new User(finalName, finalEmail, "");
-            u.setEnabled(true);
-            // Используем новый метод для добавления OAuth провайдера
-            u.addAuthProvider(finalRegistrationId, finalOauth2User.getName());
-            if (finalPicture != null) {
-                u.setAvatarUrl(finalPicture);
-            }
-            return u;
-        }));
-
-        // Обновляем OAuth данные, если их нет
-        if (!user.hasAuthProvider(registrationId, oauth2User.getName())) {
-            user.addAuthProvider(registrationId, oauth2User.getName());
-        }
-
-        // Обновляем email, если он отсутствует
-        if (user.getEmail() == null || user.getEmail().isBlank()) {
-            user.setEmail(email);
-        }
-
-        // Обновляем аватар, если он отсутствует или пустой
-        if (picture != null && (user.getAvatarUrl() == null || user.getAvatarUrl().isBlank())) {
-            user.setAvatarUrl(picture);
-        }
-
-        userRepository.save(user);
+        User user = oAuthLoginService.login(registrationId, oauth2User.getName(), email, name, picture);
 
         String jwt = jwtService.generateToken(user);
         long expiresInMs = jwtService.getExpirationTime();
@@ -0,0 +1,198 @@
+package com.chinazes.secretsanta.config;
+
+import com.chinazes.secretsanta.common.MetricsSource;
+import com.chinazes.secretsanta.common.StripedTokenBucketLimiter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Throttles auth endpoints per client IP and per email before they reach the services,
+ * so bursts cannot trigger unbounded BCrypt work or verification mails.
+ * Requests to endpoints with an email limit are rejected when no email can be read,
+ * so an oversized or malformed body cannot skip the per-email bucket.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter implements MetricsSource {
+
+    private static final int MAX_INSPECTED_BODY = 16 * 1024;
+
+    private final RateLimitProperties properties;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, EndpointLimiters> limitersByPath = new HashMap<>();
+    private final List<IpAddressMatcher> trustedProxies;
+
+    public RateLimitFilter(RateLimitProperties properties) {
+        this.properties = properties;
+        this.trustedProxies = properties.getTrustedProxies().stream()
+                .filter(address -> !address.isBlank())
+                .map(address -> new IpAddressMatcher(address.trim()))
+                .toList();
+        properties.getEndpoints().forEach((name, limit) -> {
+            if (limit.getPath() != null) {
+                limitersByPath.put(limit.getPath(), new EndpointLimiters(name, limit, properties));
+            }
+        });
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !properties.isEnabled()
+                || !"POST".equals(request.getMethod())
+                || !limitersByPath.containsKey(pathOf(request));
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        EndpointLimiters limiters = limitersByPath.get(pathOf(request));
+
+        if (limiters.byIp != null && !limiters.byIp.tryAcquire(clientIp(request))) {
+            reject(response, limiters.byIp);
+            return;
+        }
+
+        HttpServletRequest forwarded = request;
+        if (limiters.byEmail != null) {
+            String email = request.getParameter("email");
+            if (email == null && isJson(request)) {
+                if (request.getContentLengthLong() > MAX_INSPECTED_BODY) {
+                    fail(response, HttpStatus.PAYLOAD_TOO_LARGE, "Request body too large");
+                    return;
+                }
+                CachedBodyRequest cached = new CachedBodyRequest(request, MAX_INSPECTED_BODY);
+                if (cached.getBody() == null) {
+                    fail(response, HttpStatus.PAYLOAD_TOO_LARGE, "Request body too large");
+                    return;
+                }
+                forwarded = cached;
+                email = readEmail(cached.getBody());
+            }
+            if (email == null || email.isBlank()) {
+                fail(response, HttpStatus.BAD_REQUEST, "Email is required");
+                return;
+            }
+            if (!limiters.byEmail.tryAcquire(email.trim().toLowerCase(Locale.ROOT))) {
+                reject(response, limiters.byEmail);
+                return;
+            }
+        }
+
+        filterChain.doFilter(forwarded, response);
+    }
+
+    private String clientIp(HttpServletRequest request) {
+        if (properties.isTrustProxyHeaders() && isTrustedProxy(request.getRemoteAddr())) {
+            String realIp = request.getHeader("X-Real-IP");
+            if (realIp != null && !realIp.isBlank()) {
+                return realIp.trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private boolean isTrustedProxy(String address) {
+        if (trustedProxies.isEmpty()) {
+            return true;
+        }
+        for (IpAddressMatcher proxy : trustedProxies) {
+            if (proxy.matches(address)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Chunked bodies report -1 and are inspected up to the limit
+    private static boolean isJson(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return contentType != null
+                && contentType.startsWith(MediaType.APPLICATION_JSON_VALUE)
+                && request.getContentLengthLong() != 0;
+    }
+
+    private String readEmail(byte[] body) {
+        if (body == null || body.length == 0) {
+            return null;
+        }
+        try {
+            JsonNode email = objectMapper.readTree(body).get("email");
+            return email != null && email.isTextual() ? email.asText() : null;
+        } catch (IOException e) {
+            // Malformed body, rejected as missing the email
+            return null;
+        }
+    }
+
+    private static void reject(HttpServletResponse response, StripedTokenBucketLimiter limiter) throws IOException {
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(limiter.getRetryAfterSeconds()));
+        fail(response, HttpStatus.TOO_MANY_REQUESTS, "Too many requests, try again later");
+    }
+
+    private static void fail(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write(message);
+    }
+
+    private static String pathOf(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "rateLimits";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        for (EndpointLimiters limiters : limitersByPath.values()) {
+            Map<String, Object> endpoint = new LinkedHashMap<>();
+            if (limiters.byIp != null) endpoint.put("ip", limiters.byIp.stats());
+            if (limiters.byEmail != null) endpoint.put("email", limiters.byEmail.stats());
+            metrics.put(limiters.name, endpoint);
+        }
+        return metrics;
+    }
+
+    private static final class EndpointLimiters {
+        final String name;
+        final StripedTokenBucketLimiter byIp;
+        final StripedTokenBucketLimiter byEmail;
+
+        EndpointLimiters(String name, RateLimitProperties.EndpointLimit limit, RateLimitProperties properties) {
+            this.name = name;
+            this.byIp = limit.getIpCapacity() > 0
+                    ? new StripedTokenBucketLimiter(limit.getIpCapacity(), limit.getIpRefillPerMinute(),
+                            properties.getMaxKeys(), properties.getStripes())
+                    : null;
+            this.byEmail = limit.getEmailCapacity() > 0
+                    ? new StripedTokenBucketLimiter(limit.getEmailCapacity(), limit.getEmailRefillPerMinute(),
+                            properties.getMaxKeys(), properties.getStripes())
+                    : null;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.chinazes.secretsanta.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-endpoint limits for RateLimitFilter, bound from rate-limit.* properties.
+ */
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // Use X-Real-IP from nginx instead of the socket address
+    private boolean trustProxyHeaders = false;
+
+    // Addresses or CIDR ranges allowed to set X-Real-IP; empty trusts any peer
+    private List<String> trustedProxies = new ArrayList<>();
+
+    private int maxKeys = 100_000;
+
+    private int stripes = 64;
+
+    private Map<String, EndpointLimit> endpoints = new LinkedHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isTrustProxyHeaders() {
+        return trustProxyHeaders;
+    }
+
+    public void setTrustProxyHeaders(boolean trustProxyHeaders) {
+        this.trustProxyHeaders = trustProxyHeaders;
+    }
+
+    public List<String> getTrustedProxies() {
+        return trustedProxies;
+    }
+
+    public void setTrustedProxies(List<String> trustedProxies) {
+        this.trustedProxies = trustedProxies;
+    }
+
+    public int getMaxKeys() {
+        return maxKeys;
+    }
+
+    public void setMaxKeys(int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    public int getStripes() {
+        return stripes;
+    }
+
+    public void setStripes(int stripes) {
+        this.stripes = stripes;
+    }
+
+    public Map<String, EndpointLimit> getEndpoints() {
+        return endpoints;
+    }
+
+    public void setEndpoints(Map<String, EndpointLimit> endpoints) {
+        this.endpoints = endpoints;
+    }
+
+    /**
+     * Limits of one endpoint. A capacity of 0 disables that dimension.
+     */
+    public static class EndpointLimit {
+        private String path;
+        private int ipCapacity = 20;
+        private int ipRefillPerMinute = 20;
+        private int emailCapacity = 5;
+        private int emailRefillPerMinute = 5;
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public int getIpCapacity() {
+            return ipCapacity;
+        }
+
+        public void setIpCapacity(int ipCapacity) {
+            this.ipCapacity = ipCapacity;
+        }
+
+        public int getIpRefillPerMinute() {
+            return ipRefillPerMinute;
+        }
+
+        public void setIpRefillPerMinute(int ipRefillPerMinute) {
+            this.ipRefillPerMinute = ipRefillPerMinute;
+        }
+
+        public int getEmailCapacity() {
+            return emailCapacity;
+        }
+
+        public void setEmailCapacity(int emailCapacity) {
+            this.emailCapacity = emailCapacity;
+        }
+
+        public int getEmailRefillPerMinute() {
+            return emailRefillPerMinute;
+        }
+
+        public void setEmailRefillPerMinute(int emailRefillPerMinute) {
+            this.emailRefillPerMinute = emailRefillPerMinute;
+        }
+    }
+}
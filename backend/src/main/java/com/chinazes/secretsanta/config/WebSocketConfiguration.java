@@ -0,0 +1,48 @@
+package com.chinazes.secretsanta.config;
+
+import com.chinazes.secretsanta.ws.ChatWebSocketHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+
+/**
+ * WebSocket endpoints. Chat sockets live at /api/ws/chat, behind the same proxy route as the API.
+ */
+@Configuration
+@EnableWebSocket
+public class WebSocketConfiguration implements WebSocketConfigurer {
+
+    private final ChatWebSocketHandler chatWebSocketHandler;
+    private final String[] allowedOrigins;
+    private final int maxFrameSize;
+    private final long idleTimeoutMillis;
+
+    public WebSocketConfiguration(
+            ChatWebSocketHandler chatWebSocketHandler,
+            @Value("${cors.allowed-origins}") String[] allowedOrigins,
+            @Value("${chat.ws.max-frame-size:16384}") int maxFrameSize,
+            @Value("${chat.ws.idle-timeout:300000}") long idleTimeoutMillis
+    ) {
+        this.chatWebSocketHandler = chatWebSocketHandler;
+        this.allowedOrigins = allowedOrigins;
+        this.maxFrameSize = maxFrameSize;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(chatWebSocketHandler, "/api/ws/chat").setAllowedOrigins(allowedOrigins);
+    }
+
+    @Bean
+    public ServletServerContainerFactoryBean createWebSocketContainer() {
+        ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+        container.setMaxTextMessageBufferSize(maxFrameSize);
+        container.setMaxSessionIdleTimeout(idleTimeoutMillis);
+        return container;
+    }
+}
@@ -0,0 +1,36 @@
+package com.chinazes.secretsanta.controllers;
+
+import com.chinazes.secretsanta.common.CurrentUser;
+import com.chinazes.secretsanta.dto.SwapPairsDto;
+import com.chinazes.secretsanta.services.PairAdminService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Admin endpoints for correcting games.
+ */
+@RestController
+@RequestMapping("/api/admin/games")
+public class AdminGameController {
+
+    private final PairAdminService pairAdminService;
+
+    public AdminGameController(PairAdminService pairAdminService) {
+        this.pairAdminService = pairAdminService;
+    }
+
+    @PostMapping("/{id}/pairs/swap")
+    public ResponseEntity<Void> swapPairs(@PathVariable String id,
+                                          @RequestBody SwapPairsDto input,
+                                          @AuthenticationPrincipal UserDetails principal) {
+        pairAdminService.swapReceivers(id, input.getFirstGifterId(), input.getSecondGifterId(),
+                CurrentUser.idOf(principal));
+        return ResponseEntity.noContent().build();
+    }
+}
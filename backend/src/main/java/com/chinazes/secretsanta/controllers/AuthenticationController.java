@@ -1,5 +1,6 @@
 package com.chinazes.secretsanta.controllers;
 
+import com.chinazes.secretsanta.common.ServiceBusyException;
 import com.chinazes.secretsanta.dto.LoginUserDto;
 import com.chinazes.secretsanta.dto.RegisterUserDto;
 import com.chinazes.secretsanta.dto.VerifyUserDto;
@@ -9,6 +10,8 @@ import com.chinazes.secretsanta.services.AuthenticationService;
 import com.chinazes.secretsanta.services.JwtService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.core.user.OAuth2User;
@@ -67,4 +70,11 @@ public class AuthenticationController {
         }
     }
 
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<String> handleServiceBusy(ServiceBusyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(e.getMessage());
+    }
+
 }
@@ -0,0 +1,80 @@
+package com.chinazes.secretsanta.controllers;
+
+import com.chinazes.secretsanta.dto.CreateCampaignDto;
+import com.chinazes.secretsanta.models.Campaign;
+import com.chinazes.secretsanta.services.CampaignService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Admin endpoints for bulk mailing campaigns.
+ */
+@RestController
+@RequestMapping("/api/admin/campaigns")
+public class CampaignController {
+
+    private final CampaignService campaignService;
+
+    public CampaignController(CampaignService campaignService) {
+        this.campaignService = campaignService;
+    }
+
+    @PostMapping
+    public ResponseEntity<Campaign> create(@RequestBody CreateCampaignDto input) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(campaignService.create(input));
+    }
+
+    @GetMapping
+    public ResponseEntity<List<Campaign>> list() {
+        return ResponseEntity.ok(campaignService.findAll());
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Campaign> get(@PathVariable String id) {
+        return campaignService.findById(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/{id}/start")
+    public ResponseEntity<Campaign> start(@PathVariable String id) {
+        return transition(id, campaignService::start);
+    }
+
+    @PostMapping("/{id}/pause")
+    public ResponseEntity<Campaign> pause(@PathVariable String id) {
+        return transition(id, campaignService::pause);
+    }
+
+    @PostMapping("/{id}/resume")
+    public ResponseEntity<Campaign> resume(@PathVariable String id) {
+        return transition(id, campaignService::start);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleInvalid(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    private ResponseEntity<Campaign> transition(String id, Predicate<String> action) {
+        if (campaignService.findById(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!action.test(id)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return campaignService.findById(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,74 @@
+package com.chinazes.secretsanta.controllers;
+
+import com.chinazes.secretsanta.common.CurrentUser;
+import com.chinazes.secretsanta.common.ServiceBusyException;
+import com.chinazes.secretsanta.dto.SendMessageDto;
+import com.chinazes.secretsanta.models.Message;
+import com.chinazes.secretsanta.responses.ChatPageResponse;
+import com.chinazes.secretsanta.services.ChatHistoryService;
+import com.chinazes.secretsanta.services.ChatService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Game chat endpoints.
+ */
+@RestController
+@RequestMapping("/api/games/{gameId}/messages")
+public class ChatController {
+
+    private final ChatService chatService;
+    private final ChatHistoryService chatHistoryService;
+
+    public ChatController(ChatService chatService, ChatHistoryService chatHistoryService) {
+        this.chatService = chatService;
+        this.chatHistoryService = chatHistoryService;
+    }
+
+    /**
+     * Page through history from newest to oldest by passing back nextCursor as before.
+     */
+    @GetMapping
+    public ResponseEntity<ChatPageResponse> history(@PathVariable String gameId,
+                                                    @RequestParam(required = false) String before,
+                                                    @RequestParam(required = false) Integer limit,
+                                                    @AuthenticationPrincipal UserDetails principal) {
+        return ResponseEntity.ok(chatHistoryService.page(gameId, CurrentUser.idOf(principal), before, limit));
+    }
+
+    /**
+     * Post a message. The response is sent once the batch holding it is stored.
+     */
+    @PostMapping
+    public CompletableFuture<ResponseEntity<Message>> send(@PathVariable String gameId,
+                                                           @RequestBody SendMessageDto input,
+                                                           @AuthenticationPrincipal UserDetails principal) {
+        return chatService.send(gameId, CurrentUser.idOf(principal), input.getMessageEncrypted())
+                .thenApply(message -> ResponseEntity.status(HttpStatus.CREATED).body(message));
+    }
+
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<String> handleServiceBusy(ServiceBusyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleInvalid(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
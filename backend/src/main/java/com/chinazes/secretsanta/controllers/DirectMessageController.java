@@ -0,0 +1,44 @@
+package com.chinazes.secretsanta.controllers;
+
+import com.chinazes.secretsanta.common.CurrentUser;
+import com.chinazes.secretsanta.dto.SendDirectMessageDto;
+import com.chinazes.secretsanta.models.DirectMessage;
+import com.chinazes.secretsanta.services.DirectMessageService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Private messages between players of a game.
+ */
+@RestController
+@RequestMapping("/api/games/{gameId}/direct-messages")
+public class DirectMessageController {
+
+    private final DirectMessageService directMessageService;
+
+    public DirectMessageController(DirectMessageService directMessageService) {
+        this.directMessageService = directMessageService;
+    }
+
+    @PostMapping
+    public ResponseEntity<DirectMessage> send(@PathVariable String gameId,
+                                              @RequestBody SendDirectMessageDto input,
+                                              @AuthenticationPrincipal UserDetails principal) {
+        DirectMessage message = directMessageService.send(
+                gameId, CurrentUser.idOf(principal), input.getReceiverId(), input.getMessageEncrypted());
+        return ResponseEntity.status(HttpStatus.CREATED).body(message);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleInvalid(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
@@ -0,0 +1,124 @@
+package com.chinazes.secretsanta.controllers;
+
+import com.chinazes.secretsanta.common.CurrentUser;
+import com.chinazes.secretsanta.models.Game;
+import com.chinazes.secretsanta.responses.GameResponse;
+import com.chinazes.secretsanta.responses.LobbyResponse;
+import com.chinazes.secretsanta.responses.PlayerResponse;
+import com.chinazes.secretsanta.responses.ReceiverResponse;
+import com.chinazes.secretsanta.services.AssignmentCache;
+import com.chinazes.secretsanta.services.GameJoinService;
+import com.chinazes.secretsanta.services.GameReadService;
+import com.chinazes.secretsanta.services.GameStartService;
+import com.chinazes.secretsanta.services.LobbyService;
+import com.chinazes.secretsanta.services.UserCacheService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.List;
+import java.util.Optional;
+
+@RequestMapping("/api/games")
+@RestController
+public class GameController {
+    private final GameStartService gameStartService;
+    private final GameJoinService gameJoinService;
+    private final LobbyService lobbyService;
+    private final GameReadService gameReadService;
+    private final AssignmentCache assignmentCache;
+    private final UserCacheService userCacheService;
+
+    public GameController(
+            GameStartService gameStartService,
+            GameJoinService gameJoinService,
+            LobbyService lobbyService,
+            GameReadService gameReadService,
+            AssignmentCache assignmentCache,
+            UserCacheService userCacheService
+    ) {
+        this.gameStartService = gameStartService;
+        this.gameJoinService = gameJoinService;
+        this.lobbyService = lobbyService;
+        this.gameReadService = gameReadService;
+        this.assignmentCache = assignmentCache;
+        this.userCacheService = userCacheService;
+    }
+
+    @GetMapping("/{id}/receiver")
+    public ResponseEntity<ReceiverResponse> myReceiver(@PathVariable String id,
+                                                       @AuthenticationPrincipal UserDetails principal) {
+        String receiverId = assignmentCache.findReceiverId(id, CurrentUser.idOf(principal));
+        if (receiverId == null) {
+            return ResponseEntity.notFound().build();
+        }
+        ReceiverResponse receiver = userCacheService.findById(receiverId)
+                .map(user -> new ReceiverResponse(receiverId, user.getUsernameField(), user.getAvatarUrl()))
+                .orElseGet(() -> new ReceiverResponse(receiverId, null, null));
+        return ResponseEntity.ok(receiver);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<GameResponse> getGame(@PathVariable String id,
+                                                @AuthenticationPrincipal UserDetails principal) {
+        Optional<Game> game = gameReadService.findGame(id);
+        if (game.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        lobbyService.requireMember(id, CurrentUser.idOf(principal));
+        return ResponseEntity.ok(new GameResponse(game.get()));
+    }
+
+    @GetMapping("/{id}/players")
+    public ResponseEntity<List<PlayerResponse>> getPlayers(@PathVariable String id,
+                                                           @AuthenticationPrincipal UserDetails principal) {
+        if (gameReadService.findGame(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        lobbyService.requireMember(id, CurrentUser.idOf(principal));
+        return ResponseEntity.ok(gameReadService.findPlayers(id).stream().map(PlayerResponse::new).toList());
+    }
+
+    /**
+     * Lobby snapshot. Clients send the last ETag and get 304 while the game version is unchanged.
+     */
+    @GetMapping("/{id}/lobby")
+    public ResponseEntity<LobbyResponse> lobby(@PathVariable String id,
+                                               @AuthenticationPrincipal UserDetails principal,
+                                               WebRequest request) {
+        Optional<Long> version = lobbyService.currentVersion(id);
+        if (version.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        String callerId = CurrentUser.idOf(principal);
+        // Before the ETag check, so a non-member never learns the version from a 304
+        lobbyService.requireMember(id, callerId);
+        String etag = "\"" + version.get() + "\"";
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return lobbyService.snapshot(id, callerId)
+                .map(lobby -> ResponseEntity.ok()
+                        .eTag("\"" + lobby.getVersion() + "\"")
+                        .cacheControl(CacheControl.noCache())
+                        .body(lobby))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/{id}/join")
+    public ResponseEntity<PlayerResponse> joinGame(@PathVariable String id, @AuthenticationPrincipal UserDetails principal) {
+        return ResponseEntity.ok(new PlayerResponse(gameJoinService.join(id, CurrentUser.idOf(principal))));
+    }
+
+    @PostMapping("/{id}/start")
+    public ResponseEntity<GameResponse> startGame(@PathVariable String id, @AuthenticationPrincipal UserDetails principal) {
+        return ResponseEntity.ok(new GameResponse(gameStartService.startGame(id, CurrentUser.idOf(principal))));
+    }
+}
@@ -0,0 +1,34 @@
+package com.chinazes.secretsanta.controllers;
+
+import com.chinazes.secretsanta.common.MetricsSource;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Admin endpoint with runtime counters of caches, pools and limiters.
+ */
+@RestController
+@RequestMapping("/api/admin/metrics")
+public class MetricsController {
+
+    private final List<MetricsSource> metricsSources;
+
+    public MetricsController(List<MetricsSource> metricsSources) {
+        this.metricsSources = metricsSources;
+    }
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> metrics() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        for (MetricsSource source : metricsSources) {
+            body.put(source.getMetricsName(), source.getMetrics());
+        }
+        return ResponseEntity.ok(body);
+    }
+}
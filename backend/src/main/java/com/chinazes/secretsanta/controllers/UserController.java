@@ -1,10 +1,16 @@
 package com.chinazes.secretsanta.controllers;
 
+import com.chinazes.secretsanta.common.CurrentUser;
 import com.chinazes.secretsanta.models.User;
+import com.chinazes.secretsanta.models.UserAssignment;
+import com.chinazes.secretsanta.models.UserGame;
+import com.chinazes.secretsanta.services.UserIndexService;
 import com.chinazes.secretsanta.services.UserService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -15,16 +21,34 @@ import java.util.List;
 @RestController
 public class UserController {
     private final UserService userService;
+    private final UserIndexService userIndexService;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, UserIndexService userIndexService) {
         this.userService = userService;
+        this.userIndexService = userIndexService;
     }
 
     @GetMapping("/me")
     public ResponseEntity<User> authenticatedUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentuser = (User) authentication.getPrincipal();
-        return ResponseEntity.ok(currentuser);
+        if (authentication.getPrincipal() instanceof User currentuser) {
+            return ResponseEntity.ok(currentuser);
+        }
+        // Principal built from JWT claims only — load the full document
+        UserDetails principal = (UserDetails) authentication.getPrincipal();
+        return userService.findByEmail(principal.getUsername())
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/me/games")
+    public ResponseEntity<List<UserGame>> myGames(@AuthenticationPrincipal UserDetails principal) {
+        return ResponseEntity.ok(userIndexService.findGames(CurrentUser.idOf(principal)));
+    }
+
+    @GetMapping("/me/assignments")
+    public ResponseEntity<List<UserAssignment>> myAssignments(@AuthenticationPrincipal UserDetails principal) {
+        return ResponseEntity.ok(userIndexService.findAssignments(CurrentUser.idOf(principal)));
     }
 
     @GetMapping("/")
@@ -0,0 +1,18 @@
+package com.chinazes.secretsanta.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Map;
+
+/**
+ * DTO for creating a mailing campaign.
+ */
+@Getter
+@Setter
+public class CreateCampaignDto {
+    private String name;
+    private String subject;
+    private String template;
+    private Map<String, String> parameters;
+}
@@ -0,0 +1,14 @@
+package com.chinazes.secretsanta.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * DTO for sending a private message to another player of a game.
+ */
+@Getter
+@Setter
+public class SendDirectMessageDto {
+    private String receiverId;
+    private String messageEncrypted;
+}
@@ -0,0 +1,13 @@
+package com.chinazes.secretsanta.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * DTO for posting a chat message to a game.
+ */
+@Getter
+@Setter
+public class SendMessageDto {
+    private String messageEncrypted;
+}
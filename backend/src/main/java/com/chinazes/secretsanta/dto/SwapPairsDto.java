@@ -0,0 +1,14 @@
+package com.chinazes.secretsanta.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * DTO for swapping the receivers of two gifters.
+ */
+@Getter
+@Setter
+public class SwapPairsDto {
+    private String firstGifterId;
+    private String secondGifterId;
+}
@@ -0,0 +1,99 @@
+package com.chinazes.secretsanta.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+
+/**
+ * Maps an OAuth identity (provider, providerId) to the user that owns it.
+ * Users are sharded by email, so the email is copied here to keep the follow-up
+ * user lookup on a single shard.
+ */
+@Document(collection = "authidentities")
+public class AuthIdentity {
+
+    @Id
+    private String id;
+
+    @Field("provider")
+    private String provider;
+
+    @Field("providerId")
+    private String providerId;
+
+    @Field("userId")
+    private String userId;
+
+    @Field("email")
+    private String email;
+
+    @Field("createdAt")
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    // Constructors
+    public AuthIdentity() {}
+
+    public AuthIdentity(String provider, String providerId, String userId, String email) {
+        this.id = idFor(provider, providerId);
+        this.provider = provider;
+        this.providerId = providerId;
+        this.userId = userId;
+        this.email = email;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public static String idFor(String provider, String providerId) {
+        return provider + ":" + providerId;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    public void setProvider(String provider) {
+        this.provider = provider;
+    }
+
+    public String getProviderId() {
+        return providerId;
+    }
+
+    public void setProviderId(String providerId) {
+        this.providerId = providerId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
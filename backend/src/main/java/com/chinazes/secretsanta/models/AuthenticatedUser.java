@@ -0,0 +1,59 @@
+package com.chinazes.secretsanta.models;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Lightweight principal built from self-contained JWT claims.
+ * Used instead of the full User document when no database lookup is needed.
+ */
+public class AuthenticatedUser implements UserDetails {
+
+    private final String id;
+    private final String email;
+    private final User.Role role;
+    private final long securityEpoch;
+
+    public AuthenticatedUser(String id, String email, User.Role role, long securityEpoch) {
+        this.id = id;
+        this.email = email;
+        this.role = role;
+        this.securityEpoch = securityEpoch;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        if (role == null) return List.of();
+        return List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public User.Role getRole() {
+        return role;
+    }
+
+    public long getSecurityEpoch() {
+        return securityEpoch;
+    }
+}
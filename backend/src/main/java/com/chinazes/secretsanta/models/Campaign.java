@@ -0,0 +1,175 @@
+package com.chinazes.secretsanta.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bulk mailing campaign sent to all verified users.
+ * Progress is checkpointed by the last processed user id.
+ */
+@Document(collection = "campaigns")
+public class Campaign {
+
+    @Id
+    private String id;
+
+    @Field("name")
+    private String name;
+
+    @Field("subject")
+    private String subject;
+
+    @Field("template")
+    private String template;
+
+    @Field("parameters")
+    private Map<String, String> parameters = new HashMap<>();
+
+    @Field("status")
+    private Status status = Status.DRAFT;
+
+    @Field("lastUserId")
+    private String lastUserId;
+
+    @Field("sentCount")
+    private long sentCount = 0;
+
+    @Field("failedCount")
+    private long failedCount = 0;
+
+    @Field("leaseOwner")
+    private String leaseOwner;
+
+    @Field("leaseUntil")
+    private LocalDateTime leaseUntil;
+
+    @Field("createdAt")
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Field("completedAt")
+    private LocalDateTime completedAt;
+
+    // Constructors
+    public Campaign() {}
+
+    public Campaign(String name, String subject, String template) {
+        this.name = name;
+        this.subject = subject;
+        this.template = template;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    public void setTemplate(String template) {
+        this.template = template;
+    }
+
+    public Map<String, String> getParameters() {
+        return parameters;
+    }
+
+    public void setParameters(Map<String, String> parameters) {
+        this.parameters = parameters;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getLastUserId() {
+        return lastUserId;
+    }
+
+    public void setLastUserId(String lastUserId) {
+        this.lastUserId = lastUserId;
+    }
+
+    public long getSentCount() {
+        return sentCount;
+    }
+
+    public void setSentCount(long sentCount) {
+        this.sentCount = sentCount;
+    }
+
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    public void setFailedCount(long failedCount) {
+        this.failedCount = failedCount;
+    }
+
+    public String getLeaseOwner() {
+        return leaseOwner;
+    }
+
+    public void setLeaseOwner(String leaseOwner) {
+        this.leaseOwner = leaseOwner;
+    }
+
+    public LocalDateTime getLeaseUntil() {
+        return leaseUntil;
+    }
+
+    public void setLeaseUntil(LocalDateTime leaseUntil) {
+        this.leaseUntil = leaseUntil;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+
+    public enum Status {
+        DRAFT, RUNNING, PAUSED, COMPLETED
+    }
+}
@@ -0,0 +1,165 @@
+package com.chinazes.secretsanta.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outgoing email waiting for the SMTP dispatcher.
+ * Written together with the business change, delivered asynchronously.
+ */
+@Document(collection = "emailoutbox")
+public class EmailOutbox {
+
+    @Id
+    private String id;
+
+    @Field("to")
+    private String to;
+
+    @Field("subject")
+    private String subject;
+
+    @Field("html")
+    private String html;
+
+    @Field("status")
+    private Status status = Status.PENDING;
+
+    @Field("attempts")
+    private int attempts = 0;
+
+    @Field("nextAttemptAt")
+    private LocalDateTime nextAttemptAt = LocalDateTime.now();
+
+    @Field("lockedUntil")
+    private LocalDateTime lockedUntil;
+
+    // Instance that claimed the email; only it may renew the lock
+    @Field("lockedBy")
+    private String lockedBy;
+
+    @Field("lastError")
+    private String lastError;
+
+    @Field("createdAt")
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Field("sentAt")
+    private LocalDateTime sentAt;
+
+    // Constructors
+    public EmailOutbox() {}
+
+    public EmailOutbox(String to, String subject, String html) {
+        this.to = to;
+        this.subject = subject;
+        this.html = html;
+        this.createdAt = LocalDateTime.now();
+        this.nextAttemptAt = this.createdAt;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getTo() {
+        return to;
+    }
+
+    public void setTo(String to) {
+        this.to = to;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    public String getHtml() {
+        return html;
+    }
+
+    public void setHtml(String html) {
+        this.html = html;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public LocalDateTime getLockedUntil() {
+        return lockedUntil;
+    }
+
+    public void setLockedUntil(LocalDateTime lockedUntil) {
+        this.lockedUntil = lockedUntil;
+    }
+
+    public String getLockedBy() {
+        return lockedBy;
+    }
+
+    public void setLockedBy(String lockedBy) {
+        this.lockedBy = lockedBy;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getSentAt() {
+        return sentAt;
+    }
+
+    public void setSentAt(LocalDateTime sentAt) {
+        this.sentAt = sentAt;
+    }
+
+    // Enums
+    public enum Status {
+        PENDING, SENDING, SENT, FAILED
+    }
+}
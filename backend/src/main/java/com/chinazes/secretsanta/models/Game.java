@@ -40,6 +40,25 @@ public class Game {
     @Field("settings")
     private GameSettings settings = new GameSettings();
 
+    // Seats taken, maintained by conditional $inc on join so it never exceeds maxParticipants
+    @Field("participantCount")
+    private int participantCount = 0;
+
+    // Bumped on every change visible in the lobby, used as ETag
+    @Field("version")
+    private long version = 0;
+
+    // Instance currently running scheduled start/end work for this game
+    @Field("leaseOwner")
+    private String leaseOwner;
+
+    @Field("leaseUntil")
+    private LocalDateTime leaseUntil;
+
+    // Set when the game ends, cleared once its reveal emails are queued
+    @Field("revealPending")
+    private boolean revealPending;
+
     // Constructors
     public Game() {}
 
@@ -122,6 +141,46 @@ public class Game {
         this.settings = settings;
     }
 
+    public int getParticipantCount() {
+        return participantCount;
+    }
+
+    public void setParticipantCount(int participantCount) {
+        this.participantCount = participantCount;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public String getLeaseOwner() {
+        return leaseOwner;
+    }
+
+    public void setLeaseOwner(String leaseOwner) {
+        this.leaseOwner = leaseOwner;
+    }
+
+    public LocalDateTime getLeaseUntil() {
+        return leaseUntil;
+    }
+
+    public void setLeaseUntil(LocalDateTime leaseUntil) {
+        this.leaseUntil = leaseUntil;
+    }
+
+    public boolean isRevealPending() {
+        return revealPending;
+    }
+
+    public void setRevealPending(boolean revealPending) {
+        this.revealPending = revealPending;
+    }
+
     // Enums and Inner Classes
     public enum Status {
         DRAFT, ACTIVE, ENDED
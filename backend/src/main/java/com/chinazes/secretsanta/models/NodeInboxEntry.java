@@ -0,0 +1,100 @@
+package com.chinazes.secretsanta.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+
+/**
+ * A frame addressed to one user's sockets, or to one room's sockets, on one backend instance.
+ * Read by that instance from a change stream and expired by a TTL index.
+ */
+@Document(collection = "nodeinbox")
+public class NodeInboxEntry {
+
+    @Id
+    private String id;
+
+    @Field("nodeId")
+    private String nodeId;
+
+    @Field("userId")
+    private String userId;
+
+    // Set instead of userId for frames to every local socket of a game room
+    @Field("gameId")
+    private String gameId;
+
+    // Serialized WebSocket frame
+    @Field("payload")
+    private String payload;
+
+    @Field("createdAt")
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    // Constructors
+    public NodeInboxEntry() {}
+
+    public NodeInboxEntry(String nodeId, String userId, String payload) {
+        this.nodeId = nodeId;
+        this.userId = userId;
+        this.payload = payload;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public static NodeInboxEntry toRoom(String nodeId, String gameId, String payload) {
+        NodeInboxEntry entry = new NodeInboxEntry(nodeId, null, payload);
+        entry.gameId = gameId;
+        return entry;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public void setGameId(String gameId) {
+        this.gameId = gameId;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
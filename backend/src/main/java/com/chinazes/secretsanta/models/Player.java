@@ -5,6 +5,8 @@ import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Player entity that links users to games.
@@ -28,15 +30,32 @@ public class Player {
     @Field("isGifted")
     private boolean isGifted = false;
 
+    // Users this player must neither give to nor receive from
+    @Field("excludedUserIds")
+    private List<String> excludedUserIds = new ArrayList<>();
+
+    // Players of the same team are never paired with each other
+    @Field("team")
+    private String team;
+
     // Constructors
     public Player() {}
 
     public Player(String gameId, String userId) {
+        this.id = idFor(gameId, userId);
         this.gameId = gameId;
         this.userId = userId;
         this.joinedAt = LocalDateTime.now();
     }
 
+    /**
+     * Deterministic id, so a user can join a game only once.
+     * A unique (gameId, userId) index is not possible on a collection sharded by hashed _id.
+     */
+    public static String idFor(String gameId, String userId) {
+        return gameId + ":" + userId;
+    }
+
     // Getters and Setters
     public String getId() {
         return id;
@@ -77,4 +96,20 @@ public class Player {
     public void setIsGifted(boolean isGifted) {
         this.isGifted = isGifted;
     }
+
+    public List<String> getExcludedUserIds() {
+        return excludedUserIds;
+    }
+
+    public void setExcludedUserIds(List<String> excludedUserIds) {
+        this.excludedUserIds = excludedUserIds;
+    }
+
+    public String getTeam() {
+        return team;
+    }
+
+    public void setTeam(String team) {
+        this.team = team;
+    }
 }
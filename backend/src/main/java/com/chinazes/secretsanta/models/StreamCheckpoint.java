@@ -0,0 +1,58 @@
+package com.chinazes.secretsanta.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+
+/**
+ * Last processed position of a change stream consumer, so it can resume after a restart.
+ */
+@Document(collection = "streamcheckpoints")
+public class StreamCheckpoint {
+
+    @Id
+    private String id;
+
+    // The _data string of the change stream resume token
+    @Field("resumeToken")
+    private String resumeToken;
+
+    @Field("updatedAt")
+    private LocalDateTime updatedAt = LocalDateTime.now();
+
+    // Constructors
+    public StreamCheckpoint() {}
+
+    public StreamCheckpoint(String id, String resumeToken) {
+        this.id = id;
+        this.resumeToken = resumeToken;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getResumeToken() {
+        return resumeToken;
+    }
+
+    public void setResumeToken(String resumeToken) {
+        this.resumeToken = resumeToken;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
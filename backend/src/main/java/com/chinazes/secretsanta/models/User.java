@@ -1,10 +1,12 @@
 package com.chinazes.secretsanta.models;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.time.LocalDateTime;
@@ -42,6 +44,10 @@ public class User implements UserDetails {
     @Field("isOnline")  // Добавляем поле из MongoDB схемы
     private boolean online = false;
 
+    // Time of the last presence flush, compared by the reconcile before it resets isOnline
+    @Field("presenceAt")
+    private LocalDateTime presenceAt;
+
     @Field("verificationCode")
     private String verificationCode;
 
@@ -52,6 +58,10 @@ public class User implements UserDetails {
     @Field("authProviders")
     private List<AuthProvider> authProviders = new ArrayList<>();
 
+    // Providers added since the last save, picked up by AuthIdentityListener
+    @Transient
+    private List<AuthProvider> pendingAuthProviders;
+
     @Field("createdAt")
     private LocalDateTime createdAt = LocalDateTime.now();
 
@@ -61,6 +71,10 @@ public class User implements UserDetails {
     @Field("avatarUrl")
     private String avatarUrl;
 
+    // Увеличивается при смене пароля, роли или блокировке — старые JWT становятся невалидными
+    @Field("securityEpoch")
+    private long securityEpoch = 0;
+
     // Constructors
     public User() {}
 
@@ -75,7 +89,8 @@ public class User implements UserDetails {
     // UserDetails interface methods
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return List.of();
+        if (role == null) return List.of();
+        return List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
     }
 
     @Override
@@ -136,6 +151,9 @@ public class User implements UserDetails {
     }
 
     public void setPassword(String password) {
+        if (this.password != null && !this.password.equals(password)) {
+            this.securityEpoch++;
+        }
         this.password = password;
         this.updatedAt = LocalDateTime.now();
     }
@@ -145,11 +163,17 @@ public class User implements UserDetails {
     }
 
     public void setRole(Role role) {
+        if (this.role != role) {
+            this.securityEpoch++;
+        }
         this.role = role;
         this.updatedAt = LocalDateTime.now();
     }
 
     public void setEnabled(boolean enabled) {
+        if (this.enabled && !enabled) {
+            this.securityEpoch++;
+        }
         this.enabled = enabled;
         this.updatedAt = LocalDateTime.now();
     }
@@ -188,6 +212,14 @@ public class User implements UserDetails {
         this.updatedAt = updatedAt;
     }
 
+    public long getSecurityEpoch() {
+        return securityEpoch;
+    }
+
+    public void setSecurityEpoch(long securityEpoch) {
+        this.securityEpoch = securityEpoch;
+    }
+
     public boolean isOnline() {
         return online;
     }
@@ -197,6 +229,14 @@ public class User implements UserDetails {
         this.updatedAt = LocalDateTime.now();
     }
 
+    public LocalDateTime getPresenceAt() {
+        return presenceAt;
+    }
+
+    public void setPresenceAt(LocalDateTime presenceAt) {
+        this.presenceAt = presenceAt;
+    }
+
     public List<AuthProvider> getAuthProviders() {
         return authProviders;
     }
@@ -210,10 +250,24 @@ public class User implements UserDetails {
         if (this.authProviders == null) {
             this.authProviders = new ArrayList<>();
         }
-        this.authProviders.add(new AuthProvider(provider, providerId));
+        AuthProvider added = new AuthProvider(provider, providerId);
+        this.authProviders.add(added);
+        if (this.pendingAuthProviders == null) {
+            this.pendingAuthProviders = new ArrayList<>();
+        }
+        this.pendingAuthProviders.add(added);
         this.updatedAt = LocalDateTime.now();
     }
 
+    /**
+     * Return providers added since the last call and forget them.
+     */
+    public List<AuthProvider> drainPendingAuthProviders() {
+        List<AuthProvider> pending = pendingAuthProviders;
+        pendingAuthProviders = null;
+        return pending != null ? pending : List.of();
+    }
+
     // Helper methods for OAuth provider management
     public AuthProvider findAuthProvider(String provider) {
         if (authProviders == null) return null;
@@ -0,0 +1,98 @@
+package com.chinazes.secretsanta.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+
+/**
+ * Copy of a Pair keyed by the gifter, so "my assignments" reads a single shard.
+ * Maintained by UserIndexService whenever pairs are created, edited or removed.
+ */
+@Document(collection = "userassignments")
+public class UserAssignment {
+
+    @Id
+    private String id;
+
+    @Field("userId")
+    private String userId;
+
+    @Field("gameId")
+    private String gameId;
+
+    @Field("gameName")
+    private String gameName;
+
+    @Field("receiverId")
+    private String receiverId;
+
+    @Field("createdAt")
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    // Constructors
+    public UserAssignment() {}
+
+    public UserAssignment(String userId, String gameId, String gameName, String receiverId) {
+        this.id = idFor(gameId, userId);
+        this.userId = userId;
+        this.gameId = gameId;
+        this.gameName = gameName;
+        this.receiverId = receiverId;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public static String idFor(String gameId, String userId) {
+        return gameId + ":" + userId;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public void setGameId(String gameId) {
+        this.gameId = gameId;
+    }
+
+    public String getGameName() {
+        return gameName;
+    }
+
+    public void setGameName(String gameName) {
+        this.gameName = gameName;
+    }
+
+    public String getReceiverId() {
+        return receiverId;
+    }
+
+    public void setReceiverId(String receiverId) {
+        this.receiverId = receiverId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
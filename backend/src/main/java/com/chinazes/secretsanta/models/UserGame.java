@@ -0,0 +1,98 @@
+package com.chinazes.secretsanta.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+
+/**
+ * Copy of a Player keyed by the user, so "my games" reads a single shard.
+ * Maintained by UserIndexService on join and on game status changes.
+ */
+@Document(collection = "usergames")
+public class UserGame {
+
+    @Id
+    private String id;
+
+    @Field("userId")
+    private String userId;
+
+    @Field("gameId")
+    private String gameId;
+
+    @Field("gameName")
+    private String gameName;
+
+    @Field("status")
+    private Game.Status status;
+
+    @Field("joinedAt")
+    private LocalDateTime joinedAt = LocalDateTime.now();
+
+    // Constructors
+    public UserGame() {}
+
+    public UserGame(String userId, String gameId, String gameName, Game.Status status) {
+        this.id = idFor(gameId, userId);
+        this.userId = userId;
+        this.gameId = gameId;
+        this.gameName = gameName;
+        this.status = status;
+        this.joinedAt = LocalDateTime.now();
+    }
+
+    public static String idFor(String gameId, String userId) {
+        return gameId + ":" + userId;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public void setGameId(String gameId) {
+        this.gameId = gameId;
+    }
+
+    public String getGameName() {
+        return gameName;
+    }
+
+    public void setGameName(String gameName) {
+        this.gameName = gameName;
+    }
+
+    public Game.Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Game.Status status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getJoinedAt() {
+        return joinedAt;
+    }
+
+    public void setJoinedAt(LocalDateTime joinedAt) {
+        this.joinedAt = joinedAt;
+    }
+}
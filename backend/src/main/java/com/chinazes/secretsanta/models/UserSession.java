@@ -0,0 +1,78 @@
+package com.chinazes.secretsanta.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+
+/**
+ * A socket of a user on a backend instance. Refreshed by that instance's heartbeat
+ * and removed by the TTL index once expiresAt passes, so crashed instances age out.
+ */
+@Document(collection = "usersessions")
+public class UserSession {
+
+    @Id
+    private String id;
+
+    @Field("userId")
+    private String userId;
+
+    @Field("nodeId")
+    private String nodeId;
+
+    @Field("connectedAt")
+    private LocalDateTime connectedAt = LocalDateTime.now();
+
+    @Field("expiresAt")
+    private LocalDateTime expiresAt;
+
+    // Constructors
+    public UserSession() {}
+
+    public static String idFor(String nodeId, String sessionId) {
+        return nodeId + ":" + sessionId;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public LocalDateTime getConnectedAt() {
+        return connectedAt;
+    }
+
+    public void setConnectedAt(LocalDateTime connectedAt) {
+        this.connectedAt = connectedAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
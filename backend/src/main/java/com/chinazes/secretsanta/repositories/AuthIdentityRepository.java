@@ -0,0 +1,12 @@
+package com.chinazes.secretsanta.repositories;
+
+import com.chinazes.secretsanta.models.AuthIdentity;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for OAuth identities. Lookups go by _id ("provider:providerId"), the shard key.
+ */
+@Repository
+public interface AuthIdentityRepository extends MongoRepository<AuthIdentity, String> {
+}
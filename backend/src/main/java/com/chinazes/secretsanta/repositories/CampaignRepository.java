@@ -0,0 +1,16 @@
+package com.chinazes.secretsanta.repositories;
+
+import com.chinazes.secretsanta.models.Campaign;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for mailing campaigns.
+ */
+@Repository
+public interface CampaignRepository extends MongoRepository<Campaign, String> {
+
+    List<Campaign> findByStatus(Campaign.Status status);
+}
@@ -0,0 +1,14 @@
+package com.chinazes.secretsanta.repositories;
+
+import com.chinazes.secretsanta.models.EmailOutbox;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for queued outgoing emails.
+ */
+@Repository
+public interface EmailOutboxRepository extends MongoRepository<EmailOutbox, String> {
+
+    long countByStatus(EmailOutbox.Status status);
+}
@@ -0,0 +1,17 @@
+package com.chinazes.secretsanta.repositories;
+
+import com.chinazes.secretsanta.models.Game;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for Game entity operations.
+ */
+@Repository
+public interface GameRepository extends MongoRepository<Game, String> {
+
+    List<Game> findByCreatorIdAndStatusOrderByEndsAtDesc(String creatorId, Game.Status status, Pageable pageable);
+}
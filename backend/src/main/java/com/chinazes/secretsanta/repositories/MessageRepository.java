@@ -0,0 +1,12 @@
+package com.chinazes.secretsanta.repositories;
+
+import com.chinazes.secretsanta.models.Message;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for game chat messages. History pages are read by ChatHistoryService.
+ */
+@Repository
+public interface MessageRepository extends MongoRepository<Message, String> {
+}
@@ -0,0 +1,19 @@
+package com.chinazes.secretsanta.repositories;
+
+import com.chinazes.secretsanta.models.Pair;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for Pair entity operations.
+ */
+@Repository
+public interface PairRepository extends MongoRepository<Pair, String> {
+
+    List<Pair> findByGameId(String gameId);
+
+    List<Pair> findByGameIdIn(Collection<String> gameIds);
+}
@@ -0,0 +1,16 @@
+package com.chinazes.secretsanta.repositories;
+
+import com.chinazes.secretsanta.models.Player;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for Player entity operations.
+ */
+@Repository
+public interface PlayerRepository extends MongoRepository<Player, String> {
+
+    List<Player> findByGameId(String gameId);
+}
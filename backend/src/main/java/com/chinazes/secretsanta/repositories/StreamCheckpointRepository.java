@@ -0,0 +1,12 @@
+package com.chinazes.secretsanta.repositories;
+
+import com.chinazes.secretsanta.models.StreamCheckpoint;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for change stream checkpoints, one per consumer.
+ */
+@Repository
+public interface StreamCheckpointRepository extends MongoRepository<StreamCheckpoint, String> {
+}
@@ -0,0 +1,16 @@
+package com.chinazes.secretsanta.repositories;
+
+import com.chinazes.secretsanta.models.UserAssignment;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for assignments by gifter. Every query includes the userId shard key.
+ */
+@Repository
+public interface UserAssignmentRepository extends MongoRepository<UserAssignment, String> {
+
+    List<UserAssignment> findByUserIdOrderByCreatedAtDesc(String userId);
+}
@@ -0,0 +1,16 @@
+package com.chinazes.secretsanta.repositories;
+
+import com.chinazes.secretsanta.models.UserGame;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for games by user. Every query includes the userId shard key.
+ */
+@Repository
+public interface UserGameRepository extends MongoRepository<UserGame, String> {
+
+    List<UserGame> findByUserIdOrderByJoinedAtDesc(String userId);
+}
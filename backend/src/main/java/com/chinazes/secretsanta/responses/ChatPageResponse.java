@@ -0,0 +1,32 @@
+package com.chinazes.secretsanta.responses;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Response DTO with one page of chat history, newest first.
+ * nextCursor is null when there are no older messages.
+ */
+@Getter
+@Setter
+public class ChatPageResponse {
+    private List<ChatMessage> messages;
+    private String nextCursor;
+
+    public ChatPageResponse(List<ChatMessage> messages, String nextCursor) {
+        this.messages = messages;
+        this.nextCursor = nextCursor;
+    }
+
+    @Getter
+    @Setter
+    public static class ChatMessage {
+        private String id;
+        private String userId;
+        private String messageEncrypted;
+        private LocalDateTime createdAt;
+    }
+}
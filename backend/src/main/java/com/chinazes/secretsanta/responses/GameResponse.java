@@ -0,0 +1,47 @@
+package com.chinazes.secretsanta.responses;
+
+import com.chinazes.secretsanta.models.Game;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Response DTO with the public fields of a game.
+ * Lease fields, exclusions and teams stay internal; the version is exposed as the lobby ETag.
+ */
+@Getter
+@Setter
+public class GameResponse {
+    private String id;
+    private String name;
+    private String description;
+    private String status;
+    private String creatorId;
+    private LocalDateTime startAt;
+    private LocalDateTime endsAt;
+    private LocalDateTime createdAt;
+    private int participantCount;
+    private int maxParticipants;
+    private boolean anonymous;
+    private boolean allowChat;
+    private boolean allowDirectChat;
+
+    public GameResponse(Game game) {
+        this.id = game.getId();
+        this.name = game.getName();
+        this.description = game.getDescription();
+        this.status = game.getStatus() != null ? game.getStatus().name() : null;
+        this.creatorId = game.getCreatorId();
+        this.startAt = game.getStartAt();
+        this.endsAt = game.getEndsAt();
+        this.createdAt = game.getCreatedAt();
+        this.participantCount = game.getParticipantCount();
+        if (game.getSettings() != null) {
+            this.maxParticipants = game.getSettings().getMaxParticipants();
+            this.anonymous = game.getSettings().isAnonymous();
+            this.allowChat = game.getSettings().isAllowChat();
+            this.allowDirectChat = game.getSettings().isAllowDirectChat();
+        }
+    }
+}
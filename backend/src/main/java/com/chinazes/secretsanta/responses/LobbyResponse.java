@@ -0,0 +1,38 @@
+package com.chinazes.secretsanta.responses;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Response DTO with everything the game lobby page renders.
+ */
+@Getter
+@Setter
+public class LobbyResponse {
+    private String gameId;
+    private String name;
+    private String description;
+    private String status;
+    private String creatorId;
+    private LocalDateTime startAt;
+    private LocalDateTime endsAt;
+    private int maxParticipants;
+    private boolean anonymous;
+    private boolean allowChat;
+    private long version;
+    private List<LobbyPlayer> players;
+    private LobbyPlayer myReceiver;
+
+    @Getter
+    @Setter
+    public static class LobbyPlayer {
+        private String userId;
+        private String username;
+        private String avatarUrl;
+        private LocalDateTime joinedAt;
+        private boolean gifted;
+    }
+}
@@ -0,0 +1,24 @@
+package com.chinazes.secretsanta.responses;
+
+import com.chinazes.secretsanta.models.Player;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Response DTO with a player as other players may see it. Exclusions and teams stay private.
+ */
+@Getter
+@Setter
+public class PlayerResponse {
+    private String userId;
+    private LocalDateTime joinedAt;
+    private boolean gifted;
+
+    public PlayerResponse(Player player) {
+        this.userId = player.getUserId();
+        this.joinedAt = player.getJoinedAt();
+        this.gifted = player.isGifted();
+    }
+}
@@ -0,0 +1,21 @@
+package com.chinazes.secretsanta.responses;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Response DTO with the player the caller gives a gift to.
+ */
+@Getter
+@Setter
+public class ReceiverResponse {
+    private String userId;
+    private String username;
+    private String avatarUrl;
+
+    public ReceiverResponse(String userId, String username, String avatarUrl) {
+        this.userId = userId;
+        this.username = username;
+        this.avatarUrl = avatarUrl;
+    }
+}
@@ -0,0 +1,128 @@
+package com.chinazes.secretsanta.services;
+
+import com.chinazes.secretsanta.common.ExpiringCache;
+import com.chinazes.secretsanta.common.MetricsSource;
+import com.chinazes.secretsanta.models.Pair;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Read-through cache of "who is my receiver", keyed by (gameId, gifterId).
+ * Pairs of an active game rarely change, so entries live long; they are dropped
+ * locally when the game ends or a start is rolled back, and on every replica by
+ * PairChangeStreamListener when pairs are edited or removed.
+ *
+ * A miss can race with an eviction: the pair is read, then changed and evicted, then the
+ * old receiver is stored. Every eviction bumps a per-game generation (striped by game id)
+ * before dropping entries, and a read-through drops what it stored if the generation moved
+ * since it read the pair.
+ */
+@Service
+public class AssignmentCache implements MetricsSource {
+
+    private static final int GENERATION_STRIPES = 64;
+
+    private final MongoTemplate mongoTemplate;
+    private final ExpiringCache<String, String> receivers;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final long ttlMillis;
+
+    public AssignmentCache(
+            MongoTemplate mongoTemplate,
+            @Value("${assignments.cache.max-size:100000}") int maxSize,
+            @Value("${assignments.cache.ttl:3600000}") long ttlMillis
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.receivers = new ExpiringCache<>(maxSize);
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Receiver of the gifter in the game, or null when there is no pair (yet).
+     */
+    public String findReceiverId(String gameId, String gifterId) {
+        String key = key(gameId, gifterId);
+        String receiverId = receivers.get(key);
+        if (receiverId != null) {
+            return receiverId;
+        }
+        int stripe = stripe(gameId);
+        long generation = generations.get(stripe);
+        // Served by the {gifterId: 1, gameId: 1} index
+        Query query = Query.query(Criteria.where("gifterId").is(gifterId).and("gameId").is(gameId));
+        query.fields().include("receiverId");
+        Pair pair = mongoTemplate.findOne(query, Pair.class);
+        if (pair == null) {
+            return null;
+        }
+        receivers.put(key, pair.getReceiverId(), System.currentTimeMillis() + ttlMillis);
+        if (generations.get(stripe) != generation) {
+            // Evicted while reading; the pair may be stale, so leave it to the next read
+            receivers.invalidate(key);
+        }
+        return pair.getReceiverId();
+    }
+
+    /**
+     * Preload all pairs of a freshly started game.
+     */
+    public void warmUp(String gameId, Collection<Pair> pairs) {
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        for (Pair pair : pairs) {
+            receivers.put(key(gameId, pair.getGifterId()), pair.getReceiverId(), expiresAt);
+        }
+    }
+
+    public void evict(String gameId, String gifterId) {
+        generations.incrementAndGet(stripe(gameId));
+        receivers.invalidate(key(gameId, gifterId));
+    }
+
+    public void evictGame(String gameId) {
+        generations.incrementAndGet(stripe(gameId));
+        String prefix = gameId + ":";
+        receivers.invalidateIf(key -> key.startsWith(prefix));
+    }
+
+    public void evictAll() {
+        for (int i = 0; i < GENERATION_STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+        receivers.clear();
+    }
+
+    @EventListener
+    public void onGameChanged(GameChangedEvent event) {
+        switch (event.reason()) {
+            case START_FAILED, ENDED, PAIRS_EDITED -> evictGame(event.gameId());
+            default -> {
+            }
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "assignmentCache";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        return receivers.stats();
+    }
+
+    private static int stripe(String gameId) {
+        return Math.floorMod(gameId.hashCode(), GENERATION_STRIPES);
+    }
+
+    private static String key(String gameId, String gifterId) {
+        return gameId + ":" + gifterId;
+    }
+}
@@ -0,0 +1,27 @@
+package com.chinazes.secretsanta.services;
+
+import com.chinazes.secretsanta.models.User;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Links providers added through User.addAuthProvider once the user is saved and has an id.
+ */
+@Component
+public class AuthIdentityListener extends AbstractMongoEventListener<User> {
+
+    private final AuthIdentityService authIdentityService;
+
+    public AuthIdentityListener(AuthIdentityService authIdentityService) {
+        this.authIdentityService = authIdentityService;
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<User> event) {
+        User user = event.getSource();
+        for (User.AuthProvider provider : user.drainPendingAuthProviders()) {
+            authIdentityService.link(provider.getProvider(), provider.getProviderId(), user);
+        }
+    }
+}
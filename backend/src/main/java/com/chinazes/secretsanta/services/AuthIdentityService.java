@@ -0,0 +1,113 @@
+package com.chinazes.secretsanta.services;
+
+import com.chinazes.secretsanta.common.MetricsSource;
+import com.chinazes.secretsanta.models.AuthIdentity;
+import com.chinazes.secretsanta.models.User;
+import com.chinazes.secretsanta.repositories.AuthIdentityRepository;
+import com.chinazes.secretsanta.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Resolves OAuth identities to users without querying the authProviders array,
+ * which would fan out over every shard of users.
+ */
+@Service
+public class AuthIdentityService implements MetricsSource {
+
+    private final MongoTemplate mongoTemplate;
+    private final AuthIdentityRepository authIdentityRepository;
+    private final UserRepository userRepository;
+    private final boolean legacyFallback;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleEmails = new LongAdder();
+    private final LongAdder legacyLookups = new LongAdder();
+
+    public AuthIdentityService(
+            MongoTemplate mongoTemplate,
+            AuthIdentityRepository authIdentityRepository,
+            UserRepository userRepository,
+            @Value("${auth.identities.legacy-fallback:false}") boolean legacyFallback
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.authIdentityRepository = authIdentityRepository;
+        this.userRepository = userRepository;
+        this.legacyFallback = legacyFallback;
+    }
+
+    /**
+     * Find the user owning an OAuth identity.
+     * Identities created before this collection existed are indexed by
+     * database/scripts/backfill_auth_identities.js. Until it has run, the legacy-fallback
+     * flag finds them through the authProviders array once and indexes them on the way out.
+     */
+    public Optional<User> findUser(String provider, String providerId) {
+        Optional<AuthIdentity> identity = authIdentityRepository.findById(AuthIdentity.idFor(provider, providerId));
+        if (identity.isPresent()) {
+            AuthIdentity known = identity.get();
+            Optional<User> user = userRepository.findByEmail(known.getEmail())
+                    .filter(u -> u.getId().equals(known.getUserId()));
+            if (user.isPresent()) {
+                hits.increment();
+                return user;
+            }
+            // Email changed since the identity was linked
+            staleEmails.increment();
+            user = userRepository.findById(known.getUserId());
+            user.ifPresent(u -> link(provider, providerId, u));
+            return user;
+        }
+
+        if (!legacyFallback) {
+            return Optional.empty();
+        }
+        legacyLookups.increment();
+        Optional<User> user = userRepository.findByAuthProvidersProviderAndAuthProvidersProviderId(provider, providerId);
+        user.ifPresent(u -> link(provider, providerId, u));
+        return user;
+    }
+
+    /**
+     * Point an identity at a saved user. Safe to repeat.
+     */
+    public void link(String provider, String providerId, User user) {
+        if (user.getId() == null || provider == null || providerId == null) {
+            return;
+        }
+        mongoTemplate.upsert(
+                Query.query(Criteria.where("_id").is(AuthIdentity.idFor(provider, providerId))),
+                new Update()
+                        .setOnInsert("provider", provider)
+                        .setOnInsert("providerId", providerId)
+                        .setOnInsert("createdAt", LocalDateTime.now())
+                        .set("userId", user.getId())
+                        .set("email", user.getEmail()),
+                AuthIdentity.class
+        );
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "authIdentities";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("hits", hits.sum());
+        metrics.put("staleEmails", staleEmails.sum());
+        metrics.put("legacyLookups", legacyLookups.sum());
+        return metrics;
+    }
+}
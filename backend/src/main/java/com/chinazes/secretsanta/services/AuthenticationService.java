@@ -5,16 +5,12 @@ import com.chinazes.secretsanta.dto.RegisterUserDto;
 import com.chinazes.secretsanta.dto.VerifyUserDto;
 import com.chinazes.secretsanta.models.User;
 import com.chinazes.secretsanta.repositories.UserRepository;
-import jakarta.mail.MessagingException;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
 
@@ -26,35 +22,42 @@ public class AuthenticationService {
     
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
-    private final AuthenticationManager authenticationManager;
-    private final EmailService emailService;
+    private final PasswordVerificationService passwordVerificationService;
+    private final EmailOutboxService emailOutboxService;
+    private final EmailTemplateService emailTemplateService;
 
     public AuthenticationService(
             UserRepository userRepository,
-            AuthenticationManager authenticationManager,
             PasswordEncoder passwordEncoder,
-            EmailService emailService
+            PasswordVerificationService passwordVerificationService,
+            EmailOutboxService emailOutboxService,
+            EmailTemplateService emailTemplateService
     ) {
-        this.authenticationManager = authenticationManager;
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
-        this.emailService = emailService;
+        this.passwordVerificationService = passwordVerificationService;
+        this.emailOutboxService = emailOutboxService;
+        this.emailTemplateService = emailTemplateService;
     }
 
     /**
      * Register new user.
+     * The verification email is queued in the outbox and sent in the background.
+     * The two writes are not atomic; if queueing fails the user can request a new code.
      */
     public User signup(RegisterUserDto input) {
         User user = new User(input.getUsername(), input.getEmail(), passwordEncoder.encode(input.getPassword()));
         user.setVerificationCode(generateVerificationCode());
         user.setVerificationCodeExpiresAt(LocalDateTime.now().plusMinutes(15));
         user.setEnabled(false);
-        sendVerificationEmail(user);
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        sendVerificationEmail(saved);
+        return saved;
     }
 
     /**
      * Authenticate user login.
+     * The user is fetched once and BCrypt runs on the bounded password pool.
      */
     public User authenticate(LoginUserDto input) {
         User user = userRepository.findByEmail(input.getEmail())
@@ -64,12 +67,14 @@ public class AuthenticationService {
             throw new RuntimeException("Account not verified. Please verify your account.");
         }
 
-        authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        input.getEmail(),
-                        input.getPassword()
-                )
-        );
+        if (input.getPassword() == null
+                || !passwordVerificationService.matches(input.getPassword(), user.getPassword())) {
+            throw new BadCredentialsException("Bad credentials");
+        }
+
+        if (passwordVerificationService.needsRehash(user.getPassword())) {
+            passwordVerificationService.rehashAsync(user, input.getPassword());
+        }
 
         return user;
     }
@@ -109,38 +114,20 @@ public class AuthenticationService {
             }
             user.setVerificationCode(generateVerificationCode());
             user.setVerificationCodeExpiresAt(LocalDateTime.now().plusHours(1));
-            sendVerificationEmail(user);
             userRepository.save(user);
+            sendVerificationEmail(user);
         } else {
             throw new RuntimeException("User not found");
         }
     }
 
     /**
-     * Send verification email to user.
+     * Queue verification email for user.
      */
-
     public void sendVerificationEmail(User user) {
-        String subject = "Account Verification";
-        String verificationCode = user.getVerificationCode();
-        String message = "<html>"
-                + "<body style=\"font-family: Arial, sans-serif;\">"
-                + "<div style=\"background-color: #f5f5f5; padding: 20px;\">"
-                + "<h2 style=\"color: #333;\">Welcome to our app!</h2>"
-                + "<p style=\"font-size: 16px;\">Please enter the verification code below to continue:</p>"
-                + "<div style=\"background-color: #fff; padding: 20px; border-radius: 5px; box-shadow: 0 0 10px rgba(0,0,0,0.1);\">"
-                + "<h3 style=\"color: #333;\">Verification Code:</h3>"
-                + "<p style=\"font-size: 18px; font-weight: bold; color: #007bff;\">" + verificationCode + "</p>"
-                + "</div>"
-                + "</div>"
-                + "</body>"
-                + "</html>";
-
-        try {
-            emailService.sendVerificationEmail(user.getEmail(), subject, message);
-        } catch (MessagingException e) {
-            e.printStackTrace();
-        }
+        String message = emailTemplateService.render(EmailTemplateService.VERIFICATION,
+                Map.of("verificationCode", user.getVerificationCode()));
+        emailOutboxService.enqueue(user.getEmail(), "Account Verification", message);
     }
 
     /**
@@ -0,0 +1,356 @@
+package com.chinazes.secretsanta.services;
+
+import com.chinazes.secretsanta.common.MetricsSource;
+import com.chinazes.secretsanta.config.NodeIdentity;
+import com.chinazes.secretsanta.dto.CreateCampaignDto;
+import com.chinazes.secretsanta.models.Campaign;
+import com.chinazes.secretsanta.repositories.CampaignRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.mail.MailSendException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Sends mailing campaigns to all verified users.
+ * Recipients are streamed from Mongo by ascending id, sent in throttled SMTP batches
+ * and checkpointed after every batch. A campaign runs on one instance at a time,
+ * guarded by a lease that other instances take over when it expires.
+ */
+@Service
+public class CampaignService implements MetricsSource {
+
+    private static final Logger log = LoggerFactory.getLogger(CampaignService.class);
+
+    private final CampaignRepository campaignRepository;
+    private final MongoTemplate mongoTemplate;
+    private final EmailService emailService;
+    private final EmailTemplateService emailTemplateService;
+    private final NodeIdentity nodeIdentity;
+    private final int batchSize;
+    private final int cursorBatchSize;
+    private final long nanosPerMessage;
+    private final long leaseMillis;
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofPlatform().daemon().name("campaign-", 0).factory());
+    private final Set<String> runningLocally = ConcurrentHashMap.newKeySet();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    // Shared by all campaigns so the ceiling holds for the whole instance
+    private long nextSendNanos = System.nanoTime();
+    private volatile boolean stopping;
+
+    public CampaignService(
+            CampaignRepository campaignRepository,
+            MongoTemplate mongoTemplate,
+            EmailService emailService,
+            EmailTemplateService emailTemplateService,
+            NodeIdentity nodeIdentity,
+            @Value("${campaigns.batch-size:50}") int batchSize,
+            @Value("${campaigns.cursor-batch-size:500}") int cursorBatchSize,
+            @Value("${campaigns.messages-per-second:10}") double messagesPerSecond,
+            @Value("${campaigns.lease:60000}") long leaseMillis
+    ) {
+        if (messagesPerSecond <= 0) {
+            throw new IllegalArgumentException("campaigns.messages-per-second must be positive");
+        }
+        this.campaignRepository = campaignRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.emailService = emailService;
+        this.emailTemplateService = emailTemplateService;
+        this.nodeIdentity = nodeIdentity;
+        this.batchSize = batchSize;
+        this.cursorBatchSize = cursorBatchSize;
+        this.nanosPerMessage = (long) (TimeUnit.SECONDS.toNanos(1) / messagesPerSecond);
+        this.leaseMillis = leaseMillis;
+    }
+
+    /**
+     * Create a campaign in DRAFT state.
+     */
+    public Campaign create(CreateCampaignDto input) {
+        if (input.getTemplate() == null || !emailTemplateService.hasTemplate(input.getTemplate())) {
+            throw new IllegalArgumentException("Unknown email template: " + input.getTemplate());
+        }
+        if (input.getSubject() == null || input.getSubject().isBlank()) {
+            throw new IllegalArgumentException("Campaign subject is required");
+        }
+        Campaign campaign = new Campaign(input.getName(), input.getSubject(), input.getTemplate());
+        if (input.getParameters() != null) {
+            campaign.setParameters(new HashMap<>(input.getParameters()));
+        }
+        return campaignRepository.save(campaign);
+    }
+
+    public List<Campaign> findAll() {
+        return campaignRepository.findAll(Sort.by(Sort.Direction.DESC, "createdAt"));
+    }
+
+    public Optional<Campaign> findById(String id) {
+        return campaignRepository.findById(id);
+    }
+
+    /**
+     * Start a draft campaign or resume a paused one.
+     * Returns false when the campaign is in neither state.
+     * A lease that is still held is left alone: a sender that is finishing its batch
+     * picks the campaign back up at its checkpoint, anyone else waits for the lease to expire.
+     */
+    public boolean start(String id) {
+        boolean started = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(id)
+                        .and("status").in(Campaign.Status.DRAFT, Campaign.Status.PAUSED)),
+                new Update().set("status", Campaign.Status.RUNNING),
+                Campaign.class
+        ).getModifiedCount() == 1;
+        if (started) {
+            submit(id);
+        }
+        return started;
+    }
+
+    /**
+     * Pause a running campaign. The sender stops after its current batch.
+     */
+    public boolean pause(String id) {
+        return mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(id).and("status").is(Campaign.Status.RUNNING)),
+                new Update().set("status", Campaign.Status.PAUSED),
+                Campaign.class
+        ).getModifiedCount() == 1;
+    }
+
+    /**
+     * Pick up running campaigns nobody holds a lease on, e.g. after a pod restart.
+     */
+    @Scheduled(initialDelayString = "${campaigns.initial-delay:5000}", fixedDelayString = "${campaigns.poll-interval:15000}")
+    public void resumeOrphaned() {
+        LocalDateTime now = LocalDateTime.now();
+        for (Campaign campaign : campaignRepository.findByStatus(Campaign.Status.RUNNING)) {
+            if (campaign.getLeaseUntil() == null || campaign.getLeaseUntil().isBefore(now)) {
+                submit(campaign.getId());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stopping = true;
+        executor.shutdownNow();
+    }
+
+    private void submit(String id) {
+        if (stopping || !runningLocally.add(id)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    run(id);
+                } catch (Exception e) {
+                    log.warn("Campaign {} interrupted, it will be resumed from its checkpoint: {}", id, e.getMessage());
+                } finally {
+                    releaseLease(id);
+                    runningLocally.remove(id);
+                }
+            });
+        } catch (RuntimeException e) {
+            runningLocally.remove(id);
+            throw e;
+        }
+    }
+
+    private void run(String id) throws InterruptedException {
+        Campaign campaign = acquireLease(id);
+        if (campaign == null) {
+            return;
+        }
+        log.info("Campaign {} sending from user {}", id, campaign.getLastUserId());
+
+        Criteria criteria = Criteria.where("enabled").is(true);
+        if (campaign.getLastUserId() != null) {
+            criteria = criteria.and("_id").gt(toUserId(campaign.getLastUserId()));
+        }
+        Query recipients = Query.query(criteria).with(Sort.by(Sort.Direction.ASC, "_id")).cursorBatchSize(cursorBatchSize);
+        recipients.fields().include("email").include("username");
+
+        // Reused for every recipient, only username and email change
+        Map<String, Object> values = new HashMap<>(campaign.getParameters());
+        List<MimeMessage> batch = new ArrayList<>(batchSize);
+        String lastUserId = null;
+        int renderFailures = 0;
+
+        try (Stream<Document> users = mongoTemplate.stream(recipients, Document.class, "users")) {
+            Iterator<Document> it = users.iterator();
+            while (it.hasNext()) {
+                if (stopping) {
+                    return;
+                }
+                Document user = it.next();
+                lastUserId = String.valueOf(user.get("_id"));
+                String email = user.getString("email");
+                if (email == null) {
+                    continue;
+                }
+                values.put("username", user.getString("username"));
+                values.put("email", email);
+                try {
+                    String html = emailTemplateService.render(campaign.getTemplate(), values);
+                    batch.add(emailService.createHtmlMessage(email, campaign.getSubject(), html));
+                } catch (MessagingException e) {
+                    renderFailures++;
+                }
+
+                if (batch.size() >= batchSize) {
+                    if (!sendAndCheckpoint(id, batch, renderFailures, lastUserId)) {
+                        return;
+                    }
+                    batch.clear();
+                    renderFailures = 0;
+                }
+            }
+        }
+
+        if ((!batch.isEmpty() || lastUserId != null) && !sendAndCheckpoint(id, batch, renderFailures, lastUserId)) {
+            return;
+        }
+        mongoTemplate.updateFirst(
+                ownedRunning(id),
+                new Update().set("status", Campaign.Status.COMPLETED).set("completedAt", LocalDateTime.now()),
+                Campaign.class
+        );
+        log.info("Campaign {} completed", id);
+    }
+
+    /**
+     * Send one batch and record progress. Returns false when the campaign was paused
+     * or the lease was lost, in which case sending stops.
+     * The checkpoint is written whatever the status, so a batch that went out before a pause
+     * is not sent again on resume.
+     */
+    private boolean sendAndCheckpoint(String id, List<MimeMessage> batch, int renderFailures, String lastUserId)
+            throws InterruptedException {
+        int batchFailures = renderFailures;
+        if (!batch.isEmpty()) {
+            throttle(batch.size());
+            try {
+                emailService.sendBatch(batch.toArray(new MimeMessage[0]));
+            } catch (MailSendException e) {
+                if (e.getFailedMessages().isEmpty()) {
+                    // Connection level failure, retry the whole batch from the last checkpoint
+                    throw e;
+                }
+                batchFailures += e.getFailedMessages().size();
+            }
+        }
+        long batchSent = batch.size() - (batchFailures - renderFailures);
+        sent.add(batchSent);
+        failed.add(batchFailures);
+
+        Query owned = Query.query(Criteria.where("_id").is(id).and("leaseOwner").is(nodeIdentity.getId()));
+        owned.fields().include("status");
+        Campaign checkpointed = mongoTemplate.findAndModify(
+                owned,
+                new Update()
+                        .set("lastUserId", lastUserId)
+                        .set("leaseUntil", LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(leaseMillis)))
+                        .inc("sentCount", batchSent)
+                        .inc("failedCount", batchFailures),
+                FindAndModifyOptions.options().returnNew(true),
+                Campaign.class
+        );
+        return checkpointed != null && checkpointed.getStatus() == Campaign.Status.RUNNING;
+    }
+
+    private void throttle(int messages) throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long slot = Math.max(nextSendNanos, now);
+            nextSendNanos = slot + messages * nanosPerMessage;
+            waitNanos = slot - now;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    private Campaign acquireLease(String id) {
+        LocalDateTime now = LocalDateTime.now();
+        Query query = Query.query(Criteria.where("_id").is(id).and("status").is(Campaign.Status.RUNNING)
+                .orOperator(
+                        Criteria.where("leaseOwner").is(null),
+                        Criteria.where("leaseOwner").is(nodeIdentity.getId()),
+                        Criteria.where("leaseUntil").lt(now)));
+        Update update = new Update()
+                .set("leaseOwner", nodeIdentity.getId())
+                .set("leaseUntil", now.plusNanos(TimeUnit.MILLISECONDS.toNanos(leaseMillis)));
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Campaign.class);
+    }
+
+    private void releaseLease(String id) {
+        try {
+            mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("_id").is(id).and("leaseOwner").is(nodeIdentity.getId())),
+                    new Update().unset("leaseOwner").unset("leaseUntil"),
+                    Campaign.class
+            );
+        } catch (Exception e) {
+            log.warn("Failed to release lease of campaign {}: {}", id, e.getMessage());
+        }
+    }
+
+    private Query ownedRunning(String id) {
+        return Query.query(Criteria.where("_id").is(id)
+                .and("status").is(Campaign.Status.RUNNING)
+                .and("leaseOwner").is(nodeIdentity.getId()));
+    }
+
+    private static Object toUserId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "campaigns";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("runningLocally", runningLocally.size());
+        metrics.put("sent", sent.sum());
+        metrics.put("failed", failed.sum());
+        return metrics;
+    }
+}
@@ -0,0 +1,119 @@
+package com.chinazes.secretsanta.services;
+
+import com.chinazes.secretsanta.responses.ChatPageResponse;
+import com.chinazes.secretsanta.responses.ChatPageResponse.ChatMessage;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Chat history pages walked with a keyset cursor on (createdAt, _id).
+ * Every page is a bounded range scan of the {gameId, createdAt, _id} index,
+ * so older pages cost the same as the first one.
+ */
+@Service
+public class ChatHistoryService {
+
+    private final MongoTemplate mongoTemplate;
+    private final ChatService chatService;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    public ChatHistoryService(
+            MongoTemplate mongoTemplate,
+            ChatService chatService,
+            @Value("${chat.history.default-page-size:50}") int defaultPageSize,
+            @Value("${chat.history.max-page-size:200}") int maxPageSize
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.chatService = chatService;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    /**
+     * Load messages older than the cursor, or the newest ones when the cursor is null.
+     */
+    public ChatPageResponse page(String gameId, String userId, String cursor, Integer limit) {
+        chatService.requirePlayer(gameId, userId);
+
+        int pageSize = Math.min(limit != null && limit > 0 ? limit : defaultPageSize, maxPageSize);
+        Bson filter = Filters.eq("gameId", gameId);
+        if (cursor != null && !cursor.isBlank()) {
+            Cursor position = Cursor.decode(cursor);
+            filter = Filters.and(filter, Filters.or(
+                    Filters.lt("createdAt", position.createdAt()),
+                    Filters.and(Filters.eq("createdAt", position.createdAt()), Filters.lt("_id", position.id()))
+            ));
+        }
+
+        // One extra document tells whether another page exists
+        List<Document> documents = mongoTemplate.getCollection("messages")
+                .find(filter)
+                .projection(Projections.include("userId", "messageEncrypted", "createdAt"))
+                .sort(Sorts.descending("createdAt", "_id"))
+                .limit(pageSize + 1)
+                .into(new ArrayList<>(pageSize + 1));
+
+        boolean hasMore = documents.size() > pageSize;
+        List<ChatMessage> messages = new ArrayList<>(Math.min(documents.size(), pageSize));
+        for (int i = 0; i < documents.size() && i < pageSize; i++) {
+            messages.add(toMessage(documents.get(i)));
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            Document last = documents.get(pageSize - 1);
+            nextCursor = new Cursor(last.getDate("createdAt"), last.getObjectId("_id")).encode();
+        }
+        return new ChatPageResponse(messages, nextCursor);
+    }
+
+    private static ChatMessage toMessage(Document document) {
+        ChatMessage message = new ChatMessage();
+        message.setId(document.getObjectId("_id").toHexString());
+        message.setUserId(document.getString("userId"));
+        message.setMessageEncrypted(document.getString("messageEncrypted"));
+        Date createdAt = document.getDate("createdAt");
+        if (createdAt != null) {
+            message.setCreatedAt(LocalDateTime.ofInstant(createdAt.toInstant(), ZoneId.systemDefault()));
+        }
+        return message;
+    }
+
+    /**
+     * Position after the last returned message, sent to clients as an opaque token.
+     */
+    private record Cursor(Date createdAt, ObjectId id) {
+
+        String encode() {
+            String raw = createdAt.getTime() + ":" + id.toHexString();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+        }
+
+        static Cursor decode(String token) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+                int separator = raw.indexOf(':');
+                return new Cursor(new Date(Long.parseLong(raw.substring(0, separator))),
+                        new ObjectId(raw.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.chinazes.secretsanta.services;
+
+import com.chinazes.secretsanta.models.Message;
+
+/**
+ * Published after a chat message was stored by this instance.
+ */
+public record ChatMessageEvent(Message message) {
+}
@@ -0,0 +1,60 @@
+package com.chinazes.secretsanta.services;
+
+import com.chinazes.secretsanta.common.GameStateException;
+import com.chinazes.secretsanta.common.NotFoundException;
+import com.chinazes.secretsanta.models.Game;
+import com.chinazes.secretsanta.models.Message;
+import com.chinazes.secretsanta.models.Player;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Posting to game chats. Messages are stored through MessageWriteBuffer
+ * and announced with a ChatMessageEvent once stored.
+ */
+@Service
+public class ChatService {
+
+    private final GameReadService gameReadService;
+    private final MessageWriteBuffer messageWriteBuffer;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ChatService(
+            GameReadService gameReadService,
+            MessageWriteBuffer messageWriteBuffer,
+            ApplicationEventPublisher eventPublisher
+    ) {
+        this.gameReadService = gameReadService;
+        this.messageWriteBuffer = messageWriteBuffer;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public CompletableFuture<Message> send(String gameId, String userId, String messageEncrypted) {
+        if (messageEncrypted == null || messageEncrypted.isBlank()) {
+            throw new IllegalArgumentException("Message is empty");
+        }
+        Game game = gameReadService.findGame(gameId)
+                .orElseThrow(() -> new NotFoundException("Game not found"));
+        if (game.getSettings() != null && !game.getSettings().isAllowChat()) {
+            throw new GameStateException("Chat is disabled for this game");
+        }
+        requirePlayer(gameId, userId);
+        return messageWriteBuffer.submit(new Message(gameId, userId, messageEncrypted))
+                .thenApply(message -> {
+                    eventPublisher.publishEvent(new ChatMessageEvent(message));
+                    return message;
+                });
+    }
+
+    public void requirePlayer(String gameId, String userId) {
+        boolean isPlayer = gameReadService.findPlayers(gameId).stream()
+                .map(Player::getUserId)
+                .anyMatch(userId::equals);
+        if (!isPlayer) {
+            throw new AccessDeniedException("Only players can use the game chat");
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.chinazes.secretsanta.services;
+
+import com.chinazes.secretsanta.models.DirectMessage;
+
+/**
+ * Published after a direct message was stored by this instance.
+ */
+public record DirectMessageEvent(DirectMessage message) {
+}
@@ -0,0 +1,60 @@
+package com.chinazes.secretsanta.services;
+
+import com.chinazes.secretsanta.common.GameStateException;
+import com.chinazes.secretsanta.common.NotFoundException;
+import com.chinazes.secretsanta.models.DirectMessage;
+import com.chinazes.secretsanta.models.Game;
+import com.chinazes.secretsanta.models.Player;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Private messages between two players of a game.
+ * Stored messages are announced with a DirectMessageEvent and routed to the receiver's sockets.
+ */
+@Service
+public class DirectMessageService {
+
+    private final MongoTemplate mongoTemplate;
+    private final GameReadService gameReadService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public DirectMessageService(
+            MongoTemplate mongoTemplate,
+            GameReadService gameReadService,
+            ApplicationEventPublisher eventPublisher
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.gameReadService = gameReadService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public DirectMessage send(String gameId, String senderId, String receiverId, String messageEncrypted) {
+        if (messageEncrypted == null || messageEncrypted.isBlank()) {
+            throw new IllegalArgumentException("Message is empty");
+        }
+        if (receiverId == null || receiverId.equals(senderId)) {
+            throw new IllegalArgumentException("Invalid receiver");
+        }
+        Game game = gameReadService.findGame(gameId)
+                .orElseThrow(() -> new NotFoundException("Game not found"));
+        if (game.getSettings() == null || !game.getSettings().isAllowDirectChat()) {
+            throw new GameStateException("Direct messages are disabled for this game");
+        }
+        Set<String> players = gameReadService.findPlayers(gameId).stream()
+                .map(Player::getUserId)
+                .collect(Collectors.toSet());
+        if (!players.contains(senderId) || !players.contains(receiverId)) {
+            throw new AccessDeniedException("Direct messages are only allowed between players of the game");
+        }
+
+        DirectMessage message = mongoTemplate.insert(new DirectMessage(gameId, senderId, receiverId, messageEncrypted));
+        eventPublisher.publishEvent(new DirectMessageEvent(message));
+        return message;
+    }
+}
@@ -0,0 +1,136 @@
+package com.chinazes.secretsanta.services;
+
+import com.chinazes.secretsanta.models.EmailOutbox;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drains the email outbox in batches, one SMTP connection per batch.
+ * Each tick stops after its time budget so a large backlog cannot hold the scheduler.
+ * While a batch is being sent its claims are renewed every third of the lease, so a slow
+ * SMTP server cannot make the claims expire and another replica send the same emails.
+ */
+@Component
+public class EmailOutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+
+    private final EmailOutboxService emailOutboxService;
+    private final EmailService emailService;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long tickBudgetMillis;
+
+    private final ScheduledExecutorService leaseRenewer = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().daemon().name("outbox-lease").factory());
+
+    public EmailOutboxDispatcher(
+            EmailOutboxService emailOutboxService,
+            EmailService emailService,
+            @Value("${mail.outbox.enabled:true}") boolean enabled,
+            @Value("${mail.outbox.batch-size:20}") int batchSize,
+            @Value("${mail.outbox.tick-budget:2000}") long tickBudgetMillis
+    ) {
+        this.emailOutboxService = emailOutboxService;
+        this.emailService = emailService;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.tickBudgetMillis = tickBudgetMillis;
+    }
+
+    @Scheduled(fixedDelayString = "${mail.outbox.poll-interval:1000}")
+    public void dispatch() {
+        if (!enabled) {
+            return;
+        }
+        long deadline = System.currentTimeMillis() + tickBudgetMillis;
+        try {
+            List<EmailOutbox> batch;
+            do {
+                batch = emailOutboxService.claimBatch(batchSize);
+                send(batch);
+            } while (batch.size() == batchSize && System.currentTimeMillis() < deadline);
+        } catch (Exception e) {
+            log.warn("Email outbox dispatch failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        leaseRenewer.shutdownNow();
+    }
+
+    private void send(List<EmailOutbox> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Map<MimeMessage, EmailOutbox> byMessage = new IdentityHashMap<>();
+        for (EmailOutbox email : batch) {
+            try {
+                byMessage.put(emailService.createHtmlMessage(email.getTo(), email.getSubject(), email.getHtml()), email);
+            } catch (MessagingException e) {
+                emailOutboxService.markFailed(email, e);
+            }
+        }
+        if (byMessage.isEmpty()) {
+            return;
+        }
+
+        List<String> sent = new ArrayList<>(byMessage.size());
+        ScheduledFuture<?> renewal = renewWhileSending(byMessage.values());
+        try {
+            emailService.sendBatch(byMessage.keySet().toArray(new MimeMessage[0]));
+            byMessage.values().forEach(email -> sent.add(email.getId()));
+        } catch (MailSendException e) {
+            // Only the messages listed as failed were rejected, the rest went out
+            Map<Object, Exception> failed = e.getFailedMessages();
+            byMessage.forEach((message, email) -> {
+                Exception error = failed.get(message);
+                if (error == null && failed.isEmpty()) {
+                    error = e;
+                }
+                if (error != null) {
+                    emailOutboxService.markFailed(email, error);
+                } else {
+                    sent.add(email.getId());
+                }
+            });
+        } catch (MailException e) {
+            // Connection or authentication problem, nothing was sent
+            byMessage.values().forEach(email -> emailOutboxService.markFailed(email, e));
+        } finally {
+            renewal.cancel(false);
+        }
+        emailOutboxService.markSent(sent);
+    }
+
+    private ScheduledFuture<?> renewWhileSending(Collection<EmailOutbox> emails) {
+        List<String> ids = emails.stream().map(EmailOutbox::getId).toList();
+        long period = Math.max(emailOutboxService.getLease().toMillis() / 3, 1);
+        return leaseRenewer.scheduleWithFixedDelay(() -> {
+            try {
+                emailOutboxService.renewLease(ids);
+            } catch (Exception e) {
+                log.warn("Could not renew the outbox lease of {} emails: {}", ids.size(), e.getMessage());
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,194 @@
+package com.chinazes.secretsanta.services;
+
+import com.chinazes.secretsanta.common.MetricsSource;
+import com.chinazes.secretsanta.config.NodeIdentity;
+import com.chinazes.secretsanta.models.EmailOutbox;
+import com.chinazes.secretsanta.repositories.EmailOutboxRepository;
+import com.mongodb.bulk.BulkWriteError;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Email outbox: callers enqueue, EmailOutboxDispatcher delivers.
+ * Enqueueing is a separate write from the caller's own changes, not part of a transaction.
+ */
+@Service
+public class EmailOutboxService implements MetricsSource {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final MongoTemplate mongoTemplate;
+    private final NodeIdentity nodeIdentity;
+    private final int maxAttempts;
+    private final Duration baseBackoff;
+    private final Duration lease;
+
+    public EmailOutboxService(
+            EmailOutboxRepository emailOutboxRepository,
+            MongoTemplate mongoTemplate,
+            NodeIdentity nodeIdentity,
+            @Value("${mail.outbox.max-attempts:6}") int maxAttempts,
+            @Value("${mail.outbox.base-backoff:30000}") long baseBackoffMillis,
+            @Value("${mail.outbox.lease:120000}") long leaseMillis
+    ) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.nodeIdentity = nodeIdentity;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoff = Duration.ofMillis(baseBackoffMillis);
+        this.lease = Duration.ofMillis(leaseMillis);
+    }
+
+    /**
+     * Queue an HTML email for delivery.
+     */
+    public EmailOutbox enqueue(String to, String subject, String html) {
+        return emailOutboxRepository.save(new EmailOutbox(to, subject, html));
+    }
+
+    /**
+     * Queue many emails with a single insert.
+     */
+    public void enqueueAll(List<EmailOutbox> emails) {
+        if (!emails.isEmpty()) {
+            mongoTemplate.insert(emails, EmailOutbox.class);
+        }
+    }
+
+    /**
+     * Queue emails that carry deterministic ids, skipping those already queued,
+     * so a retried caller does not send them twice.
+     */
+    public void enqueueAllOnce(List<EmailOutbox> emails) {
+        if (emails.isEmpty()) {
+            return;
+        }
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, EmailOutbox.class)
+                    .insert(emails)
+                    .execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Claim up to batchSize due emails for this instance.
+     * Claims of a crashed instance become due again once their lease runs out;
+     * a live instance keeps its claims with renewLease while it is still sending.
+     */
+    public List<EmailOutbox> claimBatch(int batchSize) {
+        LocalDateTime now = LocalDateTime.now();
+        Query due = Query.query(new Criteria().orOperator(
+                        Criteria.where("status").is(EmailOutbox.Status.PENDING).and("nextAttemptAt").lte(now),
+                        Criteria.where("status").is(EmailOutbox.Status.SENDING).and("lockedUntil").lt(now)))
+                .with(Sort.by(Sort.Direction.ASC, "nextAttemptAt"));
+        Update claim = new Update()
+                .set("status", EmailOutbox.Status.SENDING)
+                .set("lockedUntil", now.plus(lease))
+                .set("lockedBy", nodeIdentity.getId())
+                .inc("attempts", 1);
+
+        List<EmailOutbox> claimed = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            EmailOutbox email = mongoTemplate.findAndModify(due, claim,
+                    FindAndModifyOptions.options().returnNew(true), EmailOutbox.class);
+            if (email == null) {
+                break;
+            }
+            claimed.add(email);
+        }
+        return claimed;
+    }
+
+    /**
+     * Extend the lock of emails this instance claimed and has not finished yet.
+     */
+    public void renewLease(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("_id").in(ids)
+                        .and("status").is(EmailOutbox.Status.SENDING)
+                        .and("lockedBy").is(nodeIdentity.getId())),
+                new Update().set("lockedUntil", LocalDateTime.now().plus(lease)),
+                EmailOutbox.class
+        );
+    }
+
+    public Duration getLease() {
+        return lease;
+    }
+
+    public void markSent(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("_id").in(ids)),
+                new Update()
+                        .set("status", EmailOutbox.Status.SENT)
+                        .set("sentAt", LocalDateTime.now())
+                        .unset("lockedUntil")
+                        .unset("lockedBy")
+                        .unset("lastError"),
+                EmailOutbox.class
+        );
+    }
+
+    /**
+     * Schedule a retry with exponential backoff, or give up after maxAttempts.
+     */
+    public void markFailed(EmailOutbox email, Exception error) {
+        String message = String.valueOf(error.getMessage());
+        if (message.length() > MAX_ERROR_LENGTH) {
+            message = message.substring(0, MAX_ERROR_LENGTH);
+        }
+        Update update = new Update().set("lastError", message).unset("lockedUntil").unset("lockedBy");
+        if (email.getAttempts() >= maxAttempts) {
+            update.set("status", EmailOutbox.Status.FAILED);
+        } else {
+            long factor = 1L << Math.min(email.getAttempts() - 1, 16);
+            update.set("status", EmailOutbox.Status.PENDING)
+                    .set("nextAttemptAt", LocalDateTime.now().plus(baseBackoff.multipliedBy(factor)));
+        }
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(email.getId())), update, EmailOutbox.class);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "emailOutbox";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        for (EmailOutbox.Status status : EmailOutbox.Status.values()) {
+            metrics.put(status.name().toLowerCase(), emailOutboxRepository.countByStatus(status));
+        }
+        return metrics;
+    }
+}
@@ -3,10 +3,13 @@ package com.chinazes.secretsanta.services;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
+import java.util.Map;
+
 /**
  * Service for sending emails.
  */
@@ -16,15 +19,39 @@ public class EmailService {
     private JavaMailSender emailSender;
 
     public void sendVerificationEmail(String to, String subject, String text) throws MessagingException {
+        emailSender.send(createHtmlMessage(to, subject, text));
+    }
+
+    /**
+     * Build a single-part HTML message without sending it.
+     */
+    public MimeMessage createHtmlMessage(String to, String subject, String html) throws MessagingException {
+        return createHtmlMessage(to, subject, html, Map.of());
+    }
+
+    /**
+     * Build an HTML message without sending it.
+     * Multipart is only used when there are attachments.
+     */
+    public MimeMessage createHtmlMessage(String to, String subject, String html, Map<String, Resource> attachments)
+            throws MessagingException {
         MimeMessage message = emailSender.createMimeMessage();
-        MimeMessageHelper helper = new MimeMessageHelper(message, true);
+        MimeMessageHelper helper = new MimeMessageHelper(message, !attachments.isEmpty(), "UTF-8");
 
         helper.setTo(to);
         helper.setSubject(subject);
-        helper.setText(text, true); // true indicates HTML
+        helper.setText(html, true); // true indicates HTML
+        for (Map.Entry<String, Resource> attachment : attachments.entrySet()) {
+            helper.addAttachment(attachment.getKey(), attachment.getValue());
+        }
+        return message;
+    }
 
-        emailSender.send(message);
+    /**
+     * Send several messages over a single SMTP connection.
+     * Throws MailSendException listing the messages that failed.
+     */
+    public void sendBatch(MimeMessage... messages) {
+        emailSender.send(messages);
     }
 }
-
-
@@ -0,0 +1,85 @@
+package com.chinazes.secretsanta.services;
+
+import com.chinazes.secretsanta.common.CompiledTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Email templates compiled once at startup and rendered into per-thread buffers.
+ */
+@Service
+public class EmailTemplateService {
+
+    public static final String VERIFICATION = "verification";
+    public static final String INVITE = "invite";
+    public static final String REMINDER = "reminder";
+    public static final String REVEAL = "reveal";
+
+    private static final Logger log = LoggerFactory.getLogger(EmailTemplateService.class);
+
+    // Buffers grown past this are dropped instead of being kept for the thread
+    private static final int MAX_POOLED_CAPACITY = 64 * 1024;
+
+    private static final ThreadLocal<StringBuilder> BUFFERS = ThreadLocal.withInitial(() -> new StringBuilder(4096));
+
+    private final Map<String, CompiledTemplate> templates;
+
+    public EmailTemplateService(
+            @Value("${mail.templates.location:classpath:templates/email/}") String location
+    ) {
+        this.templates = Map.copyOf(loadTemplates(location));
+        log.info("Compiled {} email templates from {}", templates.size(), location);
+    }
+
+    /**
+     * Render a template by name.
+     */
+    public String render(String name, Map<String, ?> values) {
+        CompiledTemplate template = templates.get(name);
+        if (template == null) {
+            throw new IllegalArgumentException("Unknown email template: " + name);
+        }
+        StringBuilder buffer = BUFFERS.get();
+        buffer.setLength(0);
+        buffer.ensureCapacity(template.getLiteralLength() + 256);
+        template.renderTo(buffer, values);
+        String result = buffer.toString();
+        if (buffer.capacity() > MAX_POOLED_CAPACITY) {
+            BUFFERS.remove();
+        }
+        return result;
+    }
+
+    public boolean hasTemplate(String name) {
+        return templates.containsKey(name);
+    }
+
+    private static Map<String, CompiledTemplate> loadTemplates(String location) {
+        Map<String, CompiledTemplate> compiled = new HashMap<>();
+        try {
+            Resource[] resources = new PathMatchingResourcePatternResolver().getResources(location + "*.html");
+            for (Resource resource : resources) {
+                String filename = resource.getFilename();
+                if (filename == null) {
+                    continue;
+                }
+                String name = filename.substring(0, filename.length() - ".html".length());
+                String source = resource.getContentAsString(StandardCharsets.UTF_8);
+                compiled.put(name, CompiledTemplate.compile(name, source));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load email templates from " + location, e);
+        }
+        return compiled;
+    }
+}
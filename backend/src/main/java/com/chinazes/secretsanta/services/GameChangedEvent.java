@@ -0,0 +1,11 @@
+package com.chinazes.secretsanta.services;
+
+/**
+ * Published after a game or its players changed on this instance.
+ */
+public record GameChangedEvent(String gameId, Reason reason) {
+
+    public enum Reason {
+        PLAYER_JOINED, STARTED, START_FAILED, ENDED, PAIRS_EDITED
+    }
+}
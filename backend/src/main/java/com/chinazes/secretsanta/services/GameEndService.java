@@ -0,0 +1,148 @@
+package com.chinazes.secretsanta.services;
+
+import com.chinazes.secretsanta.models.EmailOutbox;
+import com.chinazes.secretsanta.models.Game;
+import com.chinazes.secretsanta.models.Log;
+import com.chinazes.secretsanta.models.Pair;
+import com.chinazes.secretsanta.repositories.PairRepository;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Ends games: ACTIVE to ENDED and reveal emails telling every receiver who their Santa was.
+ */
+@Service
+public class GameEndService {
+
+    private static final Logger log = LoggerFactory.getLogger(GameEndService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final PairRepository pairRepository;
+    private final EmailOutboxService emailOutboxService;
+    private final EmailTemplateService emailTemplateService;
+    private final UserIndexService userIndexService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public GameEndService(
+            MongoTemplate mongoTemplate,
+            PairRepository pairRepository,
+            EmailOutboxService emailOutboxService,
+            EmailTemplateService emailTemplateService,
+            UserIndexService userIndexService,
+            ApplicationEventPublisher eventPublisher
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.pairRepository = pairRepository;
+        this.emailOutboxService = emailOutboxService;
+        this.emailTemplateService = emailTemplateService;
+        this.userIndexService = userIndexService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * End an active game. Returns false when it was not ACTIVE anymore.
+     * The game is flagged revealPending in the same update; the flag is cleared once the
+     * reveal mails are queued, and GameLifecycleScheduler retries games where that failed.
+     */
+    public boolean end(Game game, String actorId) {
+        Game ended = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(game.getId()).and("status").is(Game.Status.ACTIVE)),
+                new Update().set("status", Game.Status.ENDED).set("revealPending", true).inc("version", 1),
+                FindAndModifyOptions.options().returnNew(true),
+                Game.class
+        );
+        if (ended == null) {
+            return false;
+        }
+
+        userIndexService.onStatusChanged(ended.getId(), Game.Status.ENDED);
+        List<Pair> pairs = pairRepository.findByGameId(ended.getId());
+
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("gameId", ended.getId());
+        details.put("pairCount", pairs.size());
+        mongoTemplate.insert(new Log(Log.LogType.GAME, actorId, Log.Action.GAME_ENDED, details));
+        eventPublisher.publishEvent(new GameChangedEvent(ended.getId(), GameChangedEvent.Reason.ENDED));
+
+        try {
+            queueRevealEmails(ended, pairs);
+        } catch (RuntimeException e) {
+            log.warn("Reveal emails of game {} not queued, the lifecycle scheduler retries: {}",
+                    ended.getId(), e.getMessage());
+        }
+        return true;
+    }
+
+    /**
+     * Queue the reveal emails of an ended game that is still flagged revealPending.
+     * Safe to repeat: every mail has a deterministic id, so mails queued by an earlier
+     * attempt are skipped.
+     */
+    public void queueReveal(Game game) {
+        queueRevealEmails(game, pairRepository.findByGameId(game.getId()));
+    }
+
+    private void queueRevealEmails(Game game, List<Pair> pairs) {
+        if (!pairs.isEmpty()) {
+            emailOutboxService.enqueueAllOnce(revealEmails(game, pairs));
+        }
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(game.getId()).and("status").is(Game.Status.ENDED)),
+                new Update().unset("revealPending"),
+                Game.class
+        );
+    }
+
+    private List<EmailOutbox> revealEmails(Game game, List<Pair> pairs) {
+        Set<Object> userIds = new HashSet<>();
+        for (Pair pair : pairs) {
+            userIds.add(toObjectId(pair.getGifterId()));
+            userIds.add(toObjectId(pair.getReceiverId()));
+        }
+        Query query = Query.query(Criteria.where("_id").in(userIds));
+        query.fields().include("email").include("username");
+        Map<String, Document> users = new HashMap<>();
+        for (Document user : mongoTemplate.find(query, Document.class, "users")) {
+            users.put(String.valueOf(user.get("_id")), user);
+        }
+
+        Map<String, Object> values = new HashMap<>();
+        values.put("gameTitle", game.getName());
+        List<EmailOutbox> emails = new ArrayList<>(pairs.size());
+        for (Pair pair : pairs) {
+            Document receiver = users.get(pair.getReceiverId());
+            Document santa = users.get(pair.getGifterId());
+            if (receiver == null || santa == null || receiver.getString("email") == null) {
+                continue;
+            }
+            values.put("username", receiver.getString("username"));
+            values.put("santaName", santa.getString("username"));
+            String html = emailTemplateService.render(EmailTemplateService.REVEAL, values);
+            EmailOutbox email = new EmailOutbox(receiver.getString("email"), game.getName() + ": your Secret Santa", html);
+            email.setId("reveal:" + game.getId() + ":" + pair.getReceiverId());
+            emails.add(email);
+        }
+        return emails;
+    }
+
+    private static Object toObjectId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+}
@@ -0,0 +1,132 @@
+package com.chinazes.secretsanta.services;
+
+import com.chinazes.secretsanta.common.GameStateException;
+import com.chinazes.secretsanta.common.NotFoundException;
+import com.chinazes.secretsanta.models.Game;
+import com.chinazes.secretsanta.models.Log;
+import com.chinazes.secretsanta.models.Player;
+import com.chinazes.secretsanta.repositories.GameRepository;
+import com.chinazes.secretsanta.repositories.PlayerRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Joins users to games without over-filling them.
+ * A seat is reserved by a conditional $inc on Game.participantCount before the
+ * Player is inserted, and given back if the insert does not go through.
+ */
+@Service
+public class GameJoinService {
+
+    private final MongoTemplate mongoTemplate;
+    private final GameRepository gameRepository;
+    private final PlayerRepository playerRepository;
+    private final UserIndexService userIndexService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public GameJoinService(
+            MongoTemplate mongoTemplate,
+            GameRepository gameRepository,
+            PlayerRepository playerRepository,
+            UserIndexService userIndexService,
+            ApplicationEventPublisher eventPublisher
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.gameRepository = gameRepository;
+        this.playerRepository = playerRepository;
+        this.userIndexService = userIndexService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Join a game. Joining twice returns the existing player, and rewrites its usergames
+     * entry in case the join that created the player failed before indexing it.
+     */
+    public Player join(String gameId, String userId) {
+        if (userId == null) {
+            throw new IllegalArgumentException("User id is required");
+        }
+        String playerId = Player.idFor(gameId, userId);
+        Optional<Player> existing = playerRepository.findById(playerId);
+        if (existing.isPresent()) {
+            reindex(gameId, userId);
+            return existing.get();
+        }
+
+        Game game = reserveSeat(gameId);
+        if (game == null) {
+            Game current = gameRepository.findById(gameId)
+                    .orElseThrow(() -> new NotFoundException("Game not found"));
+            if (current.getStatus() != Game.Status.DRAFT) {
+                throw new GameStateException("Game has already started");
+            }
+            throw new GameStateException("Game is full");
+        }
+
+        Player player = new Player(gameId, userId);
+        try {
+            mongoTemplate.insert(player);
+        } catch (DuplicateKeyException e) {
+            // Lost a race with a parallel join of the same user
+            releaseSeat(gameId);
+            Player winner = playerRepository.findById(playerId).orElseThrow(() -> e);
+            userIndexService.onPlayerJoined(game, userId);
+            return winner;
+        } catch (RuntimeException e) {
+            releaseSeat(gameId);
+            throw e;
+        }
+
+        userIndexService.onPlayerJoined(game, userId);
+        mongoTemplate.insert(new Log(Log.LogType.GAME, userId, Log.Action.JOIN_GAME, Map.of("gameId", gameId)));
+        eventPublisher.publishEvent(new GameChangedEvent(gameId, GameChangedEvent.Reason.PLAYER_JOINED));
+        return player;
+    }
+
+    private void reindex(String gameId, String userId) {
+        Query query = Query.query(Criteria.where("_id").is(gameId));
+        query.fields().include("name").include("status");
+        Game game = mongoTemplate.findOne(query, Game.class);
+        if (game != null) {
+            userIndexService.onPlayerJoined(game, userId);
+        }
+    }
+
+    /**
+     * Take a seat and return the game, or null when it is full, started or missing.
+     */
+    private Game reserveSeat(String gameId) {
+        Criteria hasSeat = Criteria.expr(
+                ComparisonOperators.valueOf(ConditionalOperators.ifNull("participantCount").then(0))
+                        .lessThan("settings.maxParticipants"));
+        Query query = Query.query(new Criteria().andOperator(
+                Criteria.where("_id").is(gameId).and("status").is(Game.Status.DRAFT),
+                hasSeat));
+        query.fields().include("name").include("status");
+        return mongoTemplate.findAndModify(
+                query,
+                new Update().inc("participantCount", 1).inc("version", 1),
+                FindAndModifyOptions.options().returnNew(true),
+                Game.class
+        );
+    }
+
+    private void releaseSeat(String gameId) {
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(gameId).and("participantCount").gt(0)),
+                new Update().inc("participantCount", -1).inc("version", 1),
+                Game.class
+        );
+    }
+}
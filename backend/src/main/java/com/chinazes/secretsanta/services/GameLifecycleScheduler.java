@@ -0,0 +1,280 @@
+package com.chinazes.secretsanta.services;
+
+import com.chinazes.secretsanta.common.MetricsSource;
+import com.chinazes.secretsanta.config.NodeIdentity;
+import com.chinazes.secretsanta.models.Game;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Starts games whose startAt has passed and ends games whose endsAt has passed.
+ * Also retries the reveal emails of ended games that are still flagged revealPending.
+ *
+ * Due games are read in keyset pages ordered by (time, _id). Each one is claimed with
+ * a lease so only one replica works on it, then handed to a virtual thread. A semaphore
+ * bounds the work in flight and the poller waits for a permit before claiming more,
+ * so a large backlog is drained at a fixed pace instead of flooding Mongo.
+ * The scheduled tick only hands the drain to a dedicated thread, so a backlog never
+ * holds the shared scheduler thread.
+ */
+@Component
+public class GameLifecycleScheduler implements MetricsSource {
+
+    private static final Logger log = LoggerFactory.getLogger(GameLifecycleScheduler.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final GameStartService gameStartService;
+    private final GameEndService gameEndService;
+    private final NodeIdentity nodeIdentity;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int parallelism;
+    private final long leaseMillis;
+    private final long retryDelayMillis;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ExecutorService drainer = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().daemon().name("game-lifecycle").factory());
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final Semaphore permits;
+    private final LongAdder started = new LongAdder();
+    private final LongAdder ended = new LongAdder();
+    private final LongAdder revealed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private volatile boolean stopping;
+
+    public GameLifecycleScheduler(
+            MongoTemplate mongoTemplate,
+            GameStartService gameStartService,
+            GameEndService gameEndService,
+            NodeIdentity nodeIdentity,
+            @Value("${games.lifecycle.enabled:true}") boolean enabled,
+            @Value("${games.lifecycle.batch-size:100}") int batchSize,
+            @Value("${games.lifecycle.parallelism:16}") int parallelism,
+            @Value("${games.lifecycle.lease:120000}") long leaseMillis,
+            @Value("${games.lifecycle.retry-delay:300000}") long retryDelayMillis
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.gameStartService = gameStartService;
+        this.gameEndService = gameEndService;
+        this.nodeIdentity = nodeIdentity;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+        this.leaseMillis = leaseMillis;
+        this.retryDelayMillis = retryDelayMillis;
+        this.permits = new Semaphore(parallelism);
+    }
+
+    @Scheduled(fixedDelayString = "${games.lifecycle.poll-interval:10000}")
+    public void poll() {
+        if (!enabled || stopping || !draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            drainer.execute(this::drainAll);
+        } catch (RejectedExecutionException e) {
+            draining.set(false);
+        }
+    }
+
+    private void drainAll() {
+        try {
+            drain(Phase.START);
+            drain(Phase.END);
+            drain(Phase.REVEAL);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Game lifecycle poll failed: {}", e.getMessage());
+        } finally {
+            draining.set(false);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stopping = true;
+        drainer.shutdownNow();
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain(Phase phase) throws InterruptedException {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime lastTime = null;
+        String lastId = null;
+        while (!stopping) {
+            List<Game> page = mongoTemplate.find(duePage(phase, now, lastTime, lastId), Game.class);
+            for (Game game : page) {
+                lastTime = phase.timeOf(game);
+                lastId = game.getId();
+                permits.acquire();
+                if (!claim(game, phase)) {
+                    permits.release();
+                    continue;
+                }
+                executor.execute(() -> {
+                    try {
+                        process(game, phase);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+            if (page.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    private Query duePage(Phase phase, LocalDateTime now, LocalDateTime lastTime, String lastId) {
+        Criteria due = phase.due(now)
+                .orOperator(
+                        Criteria.where("leaseUntil").is(null),
+                        Criteria.where("leaseUntil").lt(now));
+        if (lastId != null && phase.timeField == null) {
+            due = new Criteria().andOperator(due, Criteria.where("_id").gt(lastId));
+        } else if (lastId != null) {
+            due = new Criteria().andOperator(due, new Criteria().orOperator(
+                    Criteria.where(phase.timeField).gt(lastTime),
+                    Criteria.where(phase.timeField).is(lastTime).and("_id").gt(lastId)));
+        }
+        Sort order = phase.timeField == null
+                ? Sort.by(Sort.Order.asc("_id"))
+                : Sort.by(Sort.Order.asc(phase.timeField), Sort.Order.asc("_id"));
+        Query query = Query.query(due).with(order).limit(batchSize);
+        query.fields().include("name").include("status").include("creatorId").include("settings");
+        if (phase.timeField != null) {
+            query.fields().include(phase.timeField);
+        }
+        return query;
+    }
+
+    private boolean claim(Game game, Phase phase) {
+        LocalDateTime now = LocalDateTime.now();
+        return mongoTemplate.updateFirst(
+                Query.query(phase.due(null).and("_id").is(game.getId())
+                        .orOperator(
+                                Criteria.where("leaseUntil").is(null),
+                                Criteria.where("leaseUntil").lt(now))),
+                new Update()
+                        .set("leaseOwner", nodeIdentity.getId())
+                        .set("leaseUntil", now.plusNanos(TimeUnit.MILLISECONDS.toNanos(leaseMillis))),
+                Game.class
+        ).getModifiedCount() == 1;
+    }
+
+    private void process(Game game, Phase phase) {
+        try {
+            if (phase == Phase.START) {
+                gameStartService.start(game, null);
+                started.increment();
+            } else if (phase == Phase.END) {
+                if (gameEndService.end(game, null)) {
+                    ended.increment();
+                }
+            } else {
+                gameEndService.queueReveal(game);
+                revealed.increment();
+            }
+            release(game, phase, null);
+        } catch (Exception e) {
+            failed.increment();
+            log.warn("Scheduled {} of game {} failed, retrying in {} ms: {}",
+                    phase, game.getId(), retryDelayMillis, e.getMessage());
+            // Keep the lease as a retry delay so a broken game is not picked up on every poll
+            release(game, phase, LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(retryDelayMillis)));
+        }
+    }
+
+    private void release(Game game, Phase phase, LocalDateTime retryAt) {
+        Criteria owned = Criteria.where("_id").is(game.getId()).and("leaseOwner").is(nodeIdentity.getId());
+        if (retryAt != null) {
+            // Only delay the phase that failed; a game that moved on meanwhile is released normally
+            Query stillDue = Query.query(phase.due(null).and("_id").is(game.getId())
+                    .and("leaseOwner").is(nodeIdentity.getId()));
+            if (mongoTemplate.updateFirst(stillDue, new Update().unset("leaseOwner").set("leaseUntil", retryAt),
+                    Game.class).getMatchedCount() == 1) {
+                return;
+            }
+        }
+        mongoTemplate.updateFirst(Query.query(owned), new Update().unset("leaseOwner").unset("leaseUntil"), Game.class);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "gameLifecycle";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("inFlight", parallelism - permits.availablePermits());
+        metrics.put("parallelism", parallelism);
+        metrics.put("started", started.sum());
+        metrics.put("ended", ended.sum());
+        metrics.put("revealed", revealed.sum());
+        metrics.put("failed", failed.sum());
+        return metrics;
+    }
+
+    private enum Phase {
+        START(Game.Status.DRAFT, "startAt"),
+        END(Game.Status.ACTIVE, "endsAt"),
+        // Ended games whose reveal mails could not be queued when they ended
+        REVEAL(Game.Status.ENDED, null);
+
+        private final Game.Status from;
+        private final String timeField;
+
+        Phase(Game.Status from, String timeField) {
+            this.from = from;
+            this.timeField = timeField;
+        }
+
+        /**
+         * Games this phase applies to, due at now; a null now skips the time check.
+         */
+        Criteria due(LocalDateTime now) {
+            Criteria due = Criteria.where("status").is(from);
+            if (this == REVEAL) {
+                return due.and("revealPending").is(true);
+            }
+            return now == null ? due : due.and(timeField).lte(now);
+        }
+
+        LocalDateTime timeOf(Game game) {
+            return switch (this) {
+                case START -> game.getStartAt();
+                case END -> game.getEndsAt();
+                case REVEAL -> null;
+            };
+        }
+    }
+}
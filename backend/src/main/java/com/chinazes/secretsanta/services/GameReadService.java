@@ -0,0 +1,71 @@
+package com.chinazes.secretsanta.services;
+
+import com.chinazes.secretsanta.common.MetricsSource;
+import com.chinazes.secretsanta.common.SingleFlight;
+import com.chinazes.secretsanta.models.Game;
+import com.chinazes.secretsanta.models.Player;
+import com.chinazes.secretsanta.repositories.GameRepository;
+import com.chinazes.secretsanta.repositories.PlayerRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Hot per-game reads. Concurrent requests for the same game share one Mongo query.
+ * Returned objects are shared between callers and must not be modified.
+ */
+@Service
+public class GameReadService implements MetricsSource {
+
+    private final GameRepository gameRepository;
+    private final PlayerRepository playerRepository;
+    private final SingleFlight<String, Optional<Game>> games;
+    private final SingleFlight<String, List<Player>> players;
+
+    public GameReadService(
+            GameRepository gameRepository,
+            PlayerRepository playerRepository,
+            @Value("${games.read.coalesce-window:250}") long coalesceWindowMillis,
+            @Value("${games.read.max-keys:10000}") int maxKeys
+    ) {
+        this.gameRepository = gameRepository;
+        this.playerRepository = playerRepository;
+        this.games = new SingleFlight<>(coalesceWindowMillis, maxKeys);
+        this.players = new SingleFlight<>(coalesceWindowMillis, maxKeys);
+    }
+
+    public Optional<Game> findGame(String gameId) {
+        return games.get(gameId, gameRepository::findById);
+    }
+
+    public List<Player> findPlayers(String gameId) {
+        return players.get(gameId, id -> List.copyOf(playerRepository.findByGameId(id)));
+    }
+
+    /**
+     * Drop coalesced results of a game after it changed.
+     */
+    @EventListener
+    public void onGameChanged(GameChangedEvent event) {
+        games.invalidate(event.gameId());
+        players.invalidate(event.gameId());
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "gameReads";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("game", games.stats());
+        metrics.put("players", players.stats());
+        return metrics;
+    }
+}
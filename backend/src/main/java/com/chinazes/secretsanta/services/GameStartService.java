@@ -0,0 +1,151 @@
+package com.chinazes.secretsanta.services;
+
+import com.chinazes.secretsanta.common.GameStateException;
+import com.chinazes.secretsanta.common.NotFoundException;
+import com.chinazes.secretsanta.models.Game;
+import com.chinazes.secretsanta.models.Log;
+import com.chinazes.secretsanta.models.Pair;
+import com.chinazes.secretsanta.models.Player;
+import com.chinazes.secretsanta.repositories.GameRepository;
+import com.chinazes.secretsanta.repositories.PlayerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Starts games: DRAFT to ACTIVE, pair draw and one aggregated log entry.
+ */
+@Service
+public class GameStartService {
+
+    private static final Logger log = LoggerFactory.getLogger(GameStartService.class);
+
+    private final GameRepository gameRepository;
+    private final PlayerRepository playerRepository;
+    private final PairingService pairingService;
+    private final AssignmentCache assignmentCache;
+    private final UserIndexService userIndexService;
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public GameStartService(
+            GameRepository gameRepository,
+            PlayerRepository playerRepository,
+            PairingService pairingService,
+            AssignmentCache assignmentCache,
+            UserIndexService userIndexService,
+            MongoTemplate mongoTemplate,
+            ApplicationEventPublisher eventPublisher
+    ) {
+        this.gameRepository = gameRepository;
+        this.playerRepository = playerRepository;
+        this.pairingService = pairingService;
+        this.assignmentCache = assignmentCache;
+        this.userIndexService = userIndexService;
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Start a game on behalf of its creator.
+     */
+    public Game startGame(String gameId, String actorId) {
+        Game game = gameRepository.findById(gameId)
+                .orElseThrow(() -> new NotFoundException("Game not found"));
+        if (actorId == null || !actorId.equals(game.getCreatorId())) {
+            throw new AccessDeniedException("Only the game creator can start the game");
+        }
+        return start(game, actorId);
+    }
+
+    /**
+     * Start a game. The conditional DRAFT to ACTIVE update is the only way in,
+     * so concurrent starts cannot draw twice; a failed draw moves the game back to DRAFT.
+     */
+    public Game start(Game game, String actorId) {
+        long startedAt = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+        // The previous document keeps the scheduled startAt for a rollback
+        Game active = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(game.getId()).and("status").is(Game.Status.DRAFT)),
+                new Update().set("status", Game.Status.ACTIVE).set("startAt", now).inc("version", 1),
+                FindAndModifyOptions.options().returnNew(false),
+                Game.class
+        );
+        if (active == null) {
+            throw new GameStateException("Game is not in DRAFT state");
+        }
+        LocalDateTime scheduledStartAt = active.getStartAt();
+        active.setStatus(Game.Status.ACTIVE);
+        active.setStartAt(now);
+        active.setVersion(active.getVersion() + 1);
+
+        List<Pair> pairs;
+        try {
+            List<Player> players = playerRepository.findByGameId(active.getId());
+            if (players.size() < 2) {
+                throw new GameStateException("At least two players are required to start the game");
+            }
+            pairs = pairingService.generatePairs(active.getId(), players, pairingService.loadHistory(active));
+            insertPairs(pairs);
+            userIndexService.onPairsCreated(active, pairs);
+            // Lobby snapshots taken between the status flip and the insert lack the pairs
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(active.getId())),
+                    new Update().inc("version", 1), Game.class);
+        } catch (RuntimeException e) {
+            rollback(active.getId(), scheduledStartAt);
+            eventPublisher.publishEvent(new GameChangedEvent(active.getId(), GameChangedEvent.Reason.START_FAILED));
+            throw e;
+        }
+
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("gameId", active.getId());
+        details.put("pairCount", pairs.size());
+        details.put("durationMs", System.currentTimeMillis() - startedAt);
+        mongoTemplate.insert(new Log(Log.LogType.GAME, actorId, Log.Action.PAIR_CREATED, details));
+        assignmentCache.warmUp(active.getId(), pairs);
+        eventPublisher.publishEvent(new GameChangedEvent(active.getId(), GameChangedEvent.Reason.STARTED));
+        return active;
+    }
+
+    private void insertPairs(List<Pair> pairs) {
+        // Unordered: the driver sends the whole draw in as few batches as the wire protocol allows
+        mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Pair.class)
+                .insert(pairs)
+                .execute();
+    }
+
+    private void rollback(String gameId, LocalDateTime scheduledStartAt) {
+        try {
+            mongoTemplate.remove(Query.query(Criteria.where("gameId").is(gameId)), Pair.class);
+            userIndexService.onPairsRemoved(gameId);
+            // Restore the schedule, otherwise the lifecycle scheduler would start the game right away
+            Update update = new Update().set("status", Game.Status.DRAFT).inc("version", 1);
+            if (scheduledStartAt != null) {
+                update.set("startAt", scheduledStartAt);
+            } else {
+                update.unset("startAt");
+            }
+            mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("_id").is(gameId).and("status").is(Game.Status.ACTIVE)),
+                    update,
+                    Game.class
+            );
+        } catch (Exception e) {
+            log.error("Failed to roll back start of game {}", gameId, e);
+        }
+    }
+}
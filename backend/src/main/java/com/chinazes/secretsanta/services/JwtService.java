@@ -1,7 +1,12 @@
 package com.chinazes.secretsanta.services;
 
+import com.chinazes.secretsanta.common.ExpiringCache;
+import com.chinazes.secretsanta.common.MetricsSource;
+import com.chinazes.secretsanta.models.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
@@ -9,7 +14,11 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -19,19 +28,55 @@ import java.util.function.Function;
  * Service for JWT token operations.
  */
 @Service
-public class JwtService {
+public class JwtService implements MetricsSource {
 
-    @Value("${security.jwt.secret-key}")
-    private String secretKey;
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_SECURITY_EPOCH = "sep";
 
-    @Value("${security.jwt.expiration-time}")
-    private long jwtExpiration;
+    private final long jwtExpiration;
+    private final Key signInKey;
+    private final JwtParser jwtParser;
+
+    // Keyed by SHA-256 of the compact token so raw tokens are never kept in memory
+    private final ExpiringCache<String, VerifiedToken> verifiedTokens;
+
+    public JwtService(
+            @Value("${security.jwt.secret-key}") String secretKey,
+            @Value("${security.jwt.expiration-time}") long jwtExpiration,
+            @Value("${security.jwt.verified-cache-size:10000}") int verifiedCacheSize
+    ) {
+        this.jwtExpiration = jwtExpiration;
+        this.signInKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        this.jwtParser = Jwts.parserBuilder().setSigningKey(signInKey).build();
+        this.verifiedTokens = new ExpiringCache<>(verifiedCacheSize);
+    }
+
+    /**
+     * Verify JWT token once and return its claims.
+     * Recently verified tokens are served from cache until they expire.
+     */
+    public VerifiedToken verify(String token) {
+        String digest = digest(token);
+        VerifiedToken verified = verifiedTokens.get(digest);
+        if (verified != null) {
+            return verified;
+        }
+
+        Claims claims = extractAllClaims(token);
+        if (claims.getExpiration() == null) {
+            throw new MalformedJwtException("JWT token has no expiration");
+        }
+        verified = new VerifiedToken(claims);
+        verifiedTokens.put(digest, verified, verified.getExpiresAt().toEpochMilli());
+        return verified;
+    }
 
     /**
      * Extract username from JWT token.
      */
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).getSubject();
     }
 
     /**
@@ -44,9 +89,16 @@ public class JwtService {
 
     /**
      * Generate JWT token for user.
+     * Tokens for User documents carry userId, role and security epoch claims.
      */
     public String generateToken(UserDetails userDetails) {
-        return generateToken(new HashMap<>(), userDetails);
+        Map<String, Object> claims = new HashMap<>();
+        if (userDetails instanceof User user) {
+            claims.put(CLAIM_USER_ID, user.getId());
+            claims.put(CLAIM_ROLE, user.getRole() != null ? user.getRole().name() : User.Role.REGULAR.name());
+            claims.put(CLAIM_SECURITY_EPOCH, user.getSecurityEpoch());
+        }
+        return generateToken(claims, userDetails);
     }
 
     /**
@@ -63,6 +115,16 @@ public class JwtService {
         return jwtExpiration;
     }
 
+    @Override
+    public String getMetricsName() {
+        return "verifiedTokenCache";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        return verifiedTokens.stats();
+    }
+
     /**
      * Build JWT token.
      */
@@ -71,13 +133,14 @@ public class JwtService {
             UserDetails userDetails,
             long expiration
     ) {
+        long now = System.currentTimeMillis();
         return Jwts
                 .builder()
                 .setClaims(extraClaims)
                 .setSubject(userDetails.getUsername())
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + expiration))
+                .signWith(signInKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
@@ -85,41 +148,33 @@ public class JwtService {
      * Validate JWT token.
      */
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return isTokenValid(verify(token), userDetails);
     }
 
     /**
-     * Check if JWT token is expired.
+     * Validate already verified JWT token against user.
      */
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-    /**
-     * Extract expiration date from JWT token.
-     */
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    public boolean isTokenValid(VerifiedToken token, UserDetails userDetails) {
+        return token.getSubject() != null
+                && token.getSubject().equals(userDetails.getUsername())
+                && !token.isExpired();
     }
 
     /**
      * Extract all claims from JWT token.
      */
     private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
+        return jwtParser
                 .parseClaimsJws(token)
                 .getBody();
     }
 
-    /**
-     * Get signing key for JWT.
-     */
-    private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 }
@@ -0,0 +1,233 @@
+package com.chinazes.secretsanta.services;
+
+import com.chinazes.secretsanta.common.MetricsSource;
+import com.chinazes.secretsanta.common.SingleFlight;
+import com.chinazes.secretsanta.models.Game;
+import com.chinazes.secretsanta.responses.LobbyResponse;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Builds the game lobby: one aggregation for the game and its players with their
+ * user profiles, shared by all callers, plus the caller's own pair from AssignmentCache.
+ * Concurrent requests for the same game share one in-flight query.
+ */
+@Service
+public class LobbyService implements MetricsSource {
+
+    private final MongoTemplate mongoTemplate;
+    private final AssignmentCache assignmentCache;
+    private final GameReadService gameReadService;
+    private final SingleFlight<String, Optional<Long>> versions;
+    private final SingleFlight<String, Optional<LobbyResponse>> lobbies;
+
+    public LobbyService(
+            MongoTemplate mongoTemplate,
+            AssignmentCache assignmentCache,
+            GameReadService gameReadService,
+            @Value("${games.read.coalesce-window:250}") long coalesceWindowMillis,
+            @Value("${games.read.max-keys:10000}") int maxKeys
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.assignmentCache = assignmentCache;
+        this.gameReadService = gameReadService;
+        this.versions = new SingleFlight<>(coalesceWindowMillis, maxKeys);
+        this.lobbies = new SingleFlight<>(coalesceWindowMillis, maxKeys);
+    }
+
+    /**
+     * Current lobby version of a game, or empty when the game does not exist.
+     * Costs one targeted read of a single field.
+     */
+    public Optional<Long> currentVersion(String gameId) {
+        return versions.get(gameId, this::loadVersion);
+    }
+
+    /**
+     * Throw AccessDeniedException unless the caller is the creator or a player of the game.
+     * Uses the coalesced game and player reads, so it is cheap enough to run before an ETag check.
+     */
+    public void requireMember(String gameId, String callerId) {
+        boolean member = callerId != null && (gameReadService.findGame(gameId)
+                .map(game -> callerId.equals(game.getCreatorId()))
+                .orElse(false)
+                || gameReadService.findPlayers(gameId).stream().anyMatch(player -> callerId.equals(player.getUserId())));
+        if (!member) {
+            throw new AccessDeniedException("Only players can see this game");
+        }
+    }
+
+    /**
+     * Lobby snapshot as seen by the caller, who must be the creator or a player.
+     */
+    public Optional<LobbyResponse> snapshot(String gameId, String callerId) {
+        Optional<LobbyResponse> shared = lobbies.get(gameId, this::loadLobby);
+        if (shared.isEmpty()) {
+            return Optional.empty();
+        }
+        LobbyResponse lobby = shared.get();
+        boolean member = callerId != null && (callerId.equals(lobby.getCreatorId())
+                || lobby.getPlayers().stream().anyMatch(player -> callerId.equals(player.getUserId())));
+        if (!member) {
+            throw new AccessDeniedException("Only players can see the game lobby");
+        }
+        return Optional.of(forCaller(lobby, assignmentCache.findReceiverId(gameId, callerId)));
+    }
+
+    @EventListener
+    public void onGameChanged(GameChangedEvent event) {
+        versions.invalidate(event.gameId());
+        lobbies.invalidate(event.gameId());
+    }
+
+    private Optional<Long> loadVersion(String gameId) {
+        Query query = Query.query(Criteria.where("_id").is(gameId));
+        query.fields().include("version");
+        Document game = mongoTemplate.findOne(query, Document.class, mongoTemplate.getCollectionName(Game.class));
+        if (game == null) {
+            return Optional.empty();
+        }
+        Object version = game.get("version");
+        return Optional.of(version instanceof Number number ? number.longValue() : 0L);
+    }
+
+    private Optional<LobbyResponse> loadLobby(String gameId) {
+        List<Document> pipeline = List.of(
+                new Document("$match", new Document("_id", toObjectId(gameId))),
+                new Document("$project", new Document("name", 1)
+                        .append("description", 1)
+                        .append("status", 1)
+                        .append("creatorId", 1)
+                        .append("startAt", 1)
+                        .append("endsAt", 1)
+                        .append("settings", 1)
+                        .append("version", 1)),
+                new Document("$lookup", new Document("from", "players")
+                        .append("pipeline", List.of(
+                                new Document("$match", new Document("gameId", gameId)),
+                                new Document("$sort", new Document("joinedAt", 1)),
+                                new Document("$project", new Document("_id", 0)
+                                        .append("userId", 1)
+                                        .append("joinedAt", 1)
+                                        .append("isGifted", 1)
+                                        .append("userOid", new Document("$convert", new Document("input", "$userId")
+                                                .append("to", "objectId")
+                                                .append("onError", null)))),
+                                new Document("$lookup", new Document("from", "users")
+                                        .append("localField", "userOid")
+                                        .append("foreignField", "_id")
+                                        .append("pipeline", List.of(new Document("$project", new Document("_id", 0)
+                                                .append("username", 1)
+                                                .append("avatarUrl", 1))))
+                                        .append("as", "user"))))
+                        .append("as", "players"))
+        );
+
+        Document result = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Game.class))
+                .aggregate(pipeline)
+                .first();
+        if (result == null) {
+            return Optional.empty();
+        }
+        return Optional.of(toResponse(result));
+    }
+
+    private static LobbyResponse forCaller(LobbyResponse shared, String receiverId) {
+        LobbyResponse lobby = new LobbyResponse();
+        lobby.setGameId(shared.getGameId());
+        lobby.setName(shared.getName());
+        lobby.setDescription(shared.getDescription());
+        lobby.setStatus(shared.getStatus());
+        lobby.setCreatorId(shared.getCreatorId());
+        lobby.setStartAt(shared.getStartAt());
+        lobby.setEndsAt(shared.getEndsAt());
+        lobby.setMaxParticipants(shared.getMaxParticipants());
+        lobby.setAnonymous(shared.isAnonymous());
+        lobby.setAllowChat(shared.isAllowChat());
+        lobby.setVersion(shared.getVersion());
+        lobby.setPlayers(shared.getPlayers());
+        if (receiverId != null) {
+            for (LobbyResponse.LobbyPlayer player : shared.getPlayers()) {
+                if (receiverId.equals(player.getUserId())) {
+                    lobby.setMyReceiver(player);
+                    break;
+                }
+            }
+        }
+        return lobby;
+    }
+
+    private static LobbyResponse toResponse(Document game) {
+        LobbyResponse lobby = new LobbyResponse();
+        lobby.setGameId(String.valueOf(game.get("_id")));
+        lobby.setName(game.getString("name"));
+        lobby.setDescription(game.getString("description"));
+        lobby.setStatus(game.getString("status"));
+        lobby.setCreatorId(game.getString("creatorId"));
+        lobby.setStartAt(toLocalDateTime(game.getDate("startAt")));
+        lobby.setEndsAt(toLocalDateTime(game.getDate("endsAt")));
+        Object version = game.get("version");
+        lobby.setVersion(version instanceof Number number ? number.longValue() : 0L);
+
+        Document settings = game.get("settings", Document.class);
+        if (settings != null) {
+            lobby.setMaxParticipants(settings.get("maxParticipants", Number.class) != null
+                    ? settings.get("maxParticipants", Number.class).intValue() : 0);
+            lobby.setAnonymous(Boolean.TRUE.equals(settings.getBoolean("anonymous")));
+            lobby.setAllowChat(Boolean.TRUE.equals(settings.getBoolean("allowChat")));
+        }
+
+        List<LobbyResponse.LobbyPlayer> players = new ArrayList<>();
+        for (Document player : game.getList("players", Document.class, List.of())) {
+            LobbyResponse.LobbyPlayer entry = new LobbyResponse.LobbyPlayer();
+            entry.setUserId(player.getString("userId"));
+            entry.setJoinedAt(toLocalDateTime(player.getDate("joinedAt")));
+            entry.setGifted(Boolean.TRUE.equals(player.getBoolean("isGifted")));
+            List<Document> user = player.getList("user", Document.class, List.of());
+            if (!user.isEmpty()) {
+                entry.setUsername(user.get(0).getString("username"));
+                entry.setAvatarUrl(user.get(0).getString("avatarUrl"));
+            }
+            players.add(entry);
+        }
+        lobby.setPlayers(List.copyOf(players));
+        return lobby;
+    }
+
+    private static LocalDateTime toLocalDateTime(Date date) {
+        return date != null ? LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault()) : null;
+    }
+
+    private static Object toObjectId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "lobbyReads";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("version", versions.stats());
+        metrics.put("lobby", lobbies.stats());
+        return metrics;
+    }
+}
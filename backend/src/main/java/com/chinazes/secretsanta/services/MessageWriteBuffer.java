@@ -0,0 +1,215 @@
+package com.chinazes.secretsanta.services;
+
+import com.chinazes.secretsanta.common.MetricsSource;
+import com.chinazes.secretsanta.common.ServiceBusyException;
+import com.chinazes.secretsanta.models.Message;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Group-commit writer for chat messages.
+ * Senders enqueue without locking; one flusher thread inserts everything queued
+ * with a single unordered bulk insert every flush interval, or as soon as a full
+ * batch is waiting. A sender's future completes only after its batch is acknowledged.
+ * Futures complete on the flusher thread, so callbacks attached to them must be short.
+ */
+@Service
+public class MessageWriteBuffer implements SmartLifecycle, MetricsSource {
+
+    private static final Logger log = LoggerFactory.getLogger(MessageWriteBuffer.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final long flushIntervalNanos;
+    private final int maxBatchSize;
+    private final int capacity;
+
+    private final ConcurrentLinkedQueue<PendingWrite> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final AtomicInteger largestBatch = new AtomicInteger();
+
+    private volatile boolean running;
+    private volatile Thread flusher;
+
+    public MessageWriteBuffer(
+            MongoTemplate mongoTemplate,
+            @Value("${chat.write.flush-interval:5}") long flushIntervalMillis,
+            @Value("${chat.write.max-batch-size:256}") int maxBatchSize,
+            @Value("${chat.write.queue-capacity:10000}") int capacity
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.maxBatchSize = maxBatchSize;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Queue a message for the next batch.
+     * Throws ServiceBusyException when the queue is full so callers fail fast instead of piling up.
+     */
+    public CompletableFuture<Message> submit(Message message) {
+        if (!running) {
+            throw new ServiceBusyException("Chat is not accepting messages", 1);
+        }
+        if (queued.incrementAndGet() > capacity) {
+            queued.decrementAndGet();
+            rejected.increment();
+            throw new ServiceBusyException("Chat is busy, try again shortly", 1);
+        }
+        if (message.getId() == null) {
+            // Known up front so the caller can reference the message before it is stored
+            message.setId(new ObjectId().toHexString());
+        }
+        PendingWrite write = new PendingWrite(message, new CompletableFuture<>());
+        queue.add(write);
+        if (!running && queue.remove(write)) {
+            // Raced with shutdown after the final drain
+            queued.decrementAndGet();
+            write.future().completeExceptionally(new ServiceBusyException("Chat is not accepting messages", 1));
+        } else if (queued.get() >= maxBatchSize) {
+            LockSupport.unpark(flusher);
+        }
+        return write.future();
+    }
+
+    @Override
+    public void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        flusher = Thread.ofPlatform().daemon().name("chat-write-buffer").start(this::run);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread current = flusher;
+        if (current == null) {
+            return;
+        }
+        LockSupport.unpark(current);
+        try {
+            current.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        PendingWrite left;
+        while ((left = queue.poll()) != null) {
+            queued.decrementAndGet();
+            left.future().completeExceptionally(new ServiceBusyException("Chat is not accepting messages", 1));
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatchSize);
+        while (running || queued.get() > 0) {
+            if (running && queued.get() < maxBatchSize) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+            do {
+                PendingWrite write;
+                while (batch.size() < maxBatchSize && (write = queue.poll()) != null) {
+                    batch.add(write);
+                }
+                if (batch.isEmpty()) {
+                    break;
+                }
+                queued.addAndGet(-batch.size());
+                flush(batch);
+                batch.clear();
+            } while (queued.get() >= maxBatchSize);
+        }
+    }
+
+    private void flush(List<PendingWrite> batch) {
+        List<Message> messages = new ArrayList<>(batch.size());
+        for (PendingWrite write : batch) {
+            messages.add(write.message());
+        }
+        batches.increment();
+        largestBatch.accumulateAndGet(batch.size(), Math::max);
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Message.class)
+                    .insert(messages)
+                    .execute();
+            for (PendingWrite write : batch) {
+                write.future().complete(write.message());
+            }
+            written.add(batch.size());
+        } catch (BulkOperationException e) {
+            // Unordered: everything except the reported indexes was stored
+            Map<Integer, BulkWriteError> errors = new HashMap<>();
+            for (BulkWriteError error : e.getErrors()) {
+                errors.put(error.getIndex(), error);
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                PendingWrite write = batch.get(i);
+                if (errors.containsKey(i)) {
+                    write.future().completeExceptionally(e);
+                } else {
+                    write.future().complete(write.message());
+                }
+            }
+            written.add(batch.size() - errors.size());
+            failed.add(errors.size());
+            log.warn("Chat batch of {} stored with {} failures: {}", batch.size(), errors.size(), e.getMessage());
+        } catch (RuntimeException e) {
+            for (PendingWrite write : batch) {
+                write.future().completeExceptionally(e);
+            }
+            failed.add(batch.size());
+            log.warn("Chat batch of {} failed: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "chatWrites";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("queued", queued.get());
+        metrics.put("capacity", capacity);
+        metrics.put("written", written.sum());
+        metrics.put("failed", failed.sum());
+        metrics.put("rejected", rejected.sum());
+        metrics.put("batches", batches.sum());
+        metrics.put("largestBatch", largestBatch.get());
+        return metrics;
+    }
+
+    private record PendingWrite(Message message, CompletableFuture<Message> future) {
+    }
+}
@@ -0,0 +1,114 @@
+package com.chinazes.secretsanta.services;
+
+import com.chinazes.secretsanta.common.MetricsSource;
+import com.chinazes.secretsanta.models.User;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Resolves or creates the user behind an OAuth login.
+ * Returning users whose document already has everything are not written at all;
+ * everyone else costs one atomic upsert on the email shard key.
+ */
+@Service
+public class OAuthLoginService implements MetricsSource {
+
+    private final MongoTemplate mongoTemplate;
+    private final AuthIdentityService authIdentityService;
+
+    private final LongAdder unchanged = new LongAdder();
+    private final LongAdder upserts = new LongAdder();
+
+    public OAuthLoginService(MongoTemplate mongoTemplate, AuthIdentityService authIdentityService) {
+        this.mongoTemplate = mongoTemplate;
+        this.authIdentityService = authIdentityService;
+    }
+
+    public User login(String provider, String providerId, String email, String name, String picture) {
+        Optional<User> known = authIdentityService.findUser(provider, providerId);
+        if (known.isPresent() && isUpToDate(known.get(), provider, providerId, picture)) {
+            unchanged.increment();
+            return known.get();
+        }
+
+        // A linked user keeps its own email even if the provider now reports another one
+        String targetEmail = known.map(User::getEmail).orElse(email);
+        User user = upsert(provider, providerId, targetEmail, name, picture);
+        upserts.increment();
+        if (picture != null && isBlank(user.getAvatarUrl())) {
+            user = fillAvatar(user, picture);
+        }
+        if (known.isEmpty()) {
+            authIdentityService.link(provider, providerId, user);
+        }
+        return user;
+    }
+
+    private User upsert(String provider, String providerId, String email, String name, String picture) {
+        LocalDateTime now = LocalDateTime.now();
+        Update update = new Update()
+                .addToSet("authProviders", new User.AuthProvider(provider, providerId))
+                .setOnInsert("username", name)
+                .setOnInsert("password", "")
+                .setOnInsert("role", User.Role.REGULAR)
+                .setOnInsert("enabled", true)
+                .setOnInsert("isOnline", false)
+                .setOnInsert("securityEpoch", 0L)
+                .setOnInsert("createdAt", now)
+                .set("updatedAt", now);
+        if (picture != null) {
+            update.setOnInsert("avatarUrl", picture);
+        }
+        return mongoTemplate.findAndModify(
+                Query.query(Criteria.where("email").is(email)),
+                update,
+                FindAndModifyOptions.options().upsert(true).returnNew(true),
+                User.class
+        );
+    }
+
+    /**
+     * Existing accounts without an avatar pick up the provider picture once.
+     */
+    private User fillAvatar(User user, String picture) {
+        User updated = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("email").is(user.getEmail()).and("avatarUrl").in(null, "")),
+                new Update().set("avatarUrl", picture),
+                FindAndModifyOptions.options().returnNew(true),
+                User.class
+        );
+        return updated != null ? updated : user;
+    }
+
+    private static boolean isUpToDate(User user, String provider, String providerId, String picture) {
+        return user.hasAuthProvider(provider, providerId)
+                && (picture == null || !isBlank(user.getAvatarUrl()));
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "oauthLogins";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("unchanged", unchanged.sum());
+        metrics.put("upserts", upserts.sum());
+        return metrics;
+    }
+}
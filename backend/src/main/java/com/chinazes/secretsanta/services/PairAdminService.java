@@ -0,0 +1,88 @@
+package com.chinazes.secretsanta.services;
+
+import com.chinazes.secretsanta.common.GameStateException;
+import com.chinazes.secretsanta.common.NotFoundException;
+import com.chinazes.secretsanta.models.Game;
+import com.chinazes.secretsanta.models.Log;
+import com.chinazes.secretsanta.models.Pair;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Manual corrections of drawn pairs by administrators.
+ */
+@Service
+public class PairAdminService {
+
+    private final MongoTemplate mongoTemplate;
+    private final UserIndexService userIndexService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public PairAdminService(
+            MongoTemplate mongoTemplate,
+            UserIndexService userIndexService,
+            ApplicationEventPublisher eventPublisher
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.userIndexService = userIndexService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Swap the receivers of two gifters, which keeps the draw a valid derangement
+     * as long as neither ends up gifting themselves. Only pairs of active games can be edited.
+     */
+    public void swapReceivers(String gameId, String firstGifterId, String secondGifterId, String actorId) {
+        requireActive(gameId);
+        Pair first = findPair(gameId, firstGifterId);
+        Pair second = findPair(gameId, secondGifterId);
+        if (first.getGifterId().equals(second.getReceiverId()) || second.getGifterId().equals(first.getReceiverId())) {
+            throw new GameStateException("Swap would make a player their own Secret Santa");
+        }
+
+        setReceiver(first, second.getReceiverId());
+        setReceiver(second, first.getReceiverId());
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(gameId)), new Update().inc("version", 1), Game.class);
+        mongoTemplate.insert(new Log(Log.LogType.GAME, actorId, Log.Action.UPDATED_GAME, Map.of(
+                "gameId", gameId,
+                "swappedGifters", List.of(firstGifterId, secondGifterId))));
+        eventPublisher.publishEvent(new GameChangedEvent(gameId, GameChangedEvent.Reason.PAIRS_EDITED));
+    }
+
+    private void requireActive(String gameId) {
+        Query query = Query.query(Criteria.where("_id").is(gameId));
+        query.fields().include("status");
+        Game game = mongoTemplate.findOne(query, Game.class);
+        if (game == null) {
+            throw new NotFoundException("Game not found");
+        }
+        if (game.getStatus() != Game.Status.ACTIVE) {
+            throw new GameStateException("Pairs can only be edited while the game is active");
+        }
+    }
+
+    private Pair findPair(String gameId, String gifterId) {
+        Pair pair = mongoTemplate.findOne(
+                Query.query(Criteria.where("gifterId").is(gifterId).and("gameId").is(gameId)), Pair.class);
+        if (pair == null) {
+            throw new NotFoundException("No pair for gifter " + gifterId + " in game " + gameId);
+        }
+        return pair;
+    }
+
+    private void setReceiver(Pair pair, String receiverId) {
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(pair.getId()).and("gameId").is(pair.getGameId())),
+                new Update().set("receiverId", receiverId),
+                Pair.class
+        );
+        userIndexService.onReceiverChanged(pair.getGameId(), pair.getGifterId(), receiverId);
+    }
+}
@@ -0,0 +1,143 @@
+package com.chinazes.secretsanta.services;
+
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tails the pairs change stream and evicts cached receivers on every replica
+ * when pairs are edited or removed.
+ * The documentKey of the sharded collection carries gameId, so no lookup is needed.
+ */
+@Component
+public class PairChangeStreamListener implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(PairChangeStreamListener.class);
+
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private final MongoTemplate mongoTemplate;
+    private final AssignmentCache assignmentCache;
+    private final boolean enabled;
+    private final long maxAwaitMillis;
+
+    private volatile boolean running;
+    private volatile Thread worker;
+    private BsonDocument resumeToken;
+
+    public PairChangeStreamListener(
+            MongoTemplate mongoTemplate,
+            AssignmentCache assignmentCache,
+            @Value("${assignments.cache.change-stream.enabled:true}") boolean enabled,
+            @Value("${assignments.cache.change-stream.max-await:500}") long maxAwaitMillis
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.assignmentCache = assignmentCache;
+        this.enabled = enabled;
+        this.maxAwaitMillis = maxAwaitMillis;
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        worker = Thread.ofPlatform().daemon().name("pairs-change-stream").start(this::run);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread current = worker;
+        if (current != null) {
+            current.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        long backoff = 500;
+        int failures = 0;
+        boolean missedEvents = false;
+        while (running) {
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = openCursor()) {
+                if (missedEvents) {
+                    // Could not resume where we stopped, so nothing cached can be trusted
+                    assignmentCache.evictAll();
+                    missedEvents = false;
+                }
+                backoff = 500;
+                failures = 0;
+                while (running) {
+                    ChangeStreamDocument<Document> event = cursor.tryNext();
+                    if (event != null) {
+                        handle(event);
+                        resumeToken = event.getResumeToken();
+                    }
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Pairs change stream interrupted, retrying in {} ms: {}", backoff, e.getMessage());
+                failures++;
+                if (failures > 1) {
+                    // Resume token may have fallen off the oplog — start over from now
+                    resumeToken = null;
+                }
+                if (resumeToken == null) {
+                    missedEvents = true;
+                }
+                sleep(backoff);
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+            }
+        }
+    }
+
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> openCursor() {
+        var stream = mongoTemplate.getCollection("pairs")
+                .watch(List.of(Aggregates.match(Filters.in("operationType", "update", "replace", "delete"))))
+                .maxAwaitTime(maxAwaitMillis, TimeUnit.MILLISECONDS);
+        if (resumeToken != null) {
+            stream = stream.resumeAfter(resumeToken);
+        }
+        return stream.cursor();
+    }
+
+    private void handle(ChangeStreamDocument<Document> event) {
+        BsonDocument key = event.getDocumentKey();
+        BsonValue gameId = key != null ? key.get("gameId") : null;
+        if (gameId == null || !gameId.isString()) {
+            // Unsharded deployments only report _id
+            assignmentCache.evictAll();
+            return;
+        }
+        assignmentCache.evictGame(gameId.asString().getValue());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.chinazes.secretsanta.services;
+
+import com.chinazes.secretsanta.common.AssignmentSolver;
+import com.chinazes.secretsanta.common.Derangements;
+import com.chinazes.secretsanta.common.InfeasibleAssignmentException;
+import com.chinazes.secretsanta.models.Game;
+import com.chinazes.secretsanta.models.Pair;
+import com.chinazes.secretsanta.models.Player;
+import com.chinazes.secretsanta.repositories.GameRepository;
+import com.chinazes.secretsanta.repositories.PairRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Service for drawing Secret Santa pairs.
+ */
+@Service
+public class PairingService {
+
+    private final GameRepository gameRepository;
+    private final PairRepository pairRepository;
+    private final int historyGames;
+    private final SecureRandom seedSource = new SecureRandom();
+
+    public PairingService(
+            GameRepository gameRepository,
+            PairRepository pairRepository,
+            @Value("${pairing.history-games:1}") int historyGames
+    ) {
+        this.gameRepository = gameRepository;
+        this.pairRepository = pairRepository;
+        this.historyGames = historyGames;
+    }
+
+    /**
+     * Draw pairs for the given player userIds so nobody gifts themselves.
+     * With singleCycle every player is part of one gift chain.
+     */
+    public List<Pair> generatePairs(String gameId, List<String> userIds, boolean singleCycle) {
+        requireUnique(userIds);
+        int[] receivers = singleCycle
+                ? Derangements.singleCycle(userIds.size(), newRandom())
+                : Derangements.uniform(userIds.size(), newRandom());
+        return toPairs(gameId, userIds, receivers);
+    }
+
+    /**
+     * Draw pairs honouring player exclusions, teams and previous receivers.
+     * Exclusions apply both ways; history only forbids repeating the same gifter/receiver pair.
+     * History is a preference: when it leaves no valid draw the players are drawn without it.
+     * Throws InfeasibleAssignmentException when exclusions and teams alone leave no valid draw.
+     */
+    public List<Pair> generatePairs(String gameId, List<Player> players, Collection<Pair> history) {
+        List<String> userIds = new ArrayList<>(players.size());
+        for (Player player : players) {
+            userIds.add(player.getUserId());
+        }
+        requireUnique(userIds);
+
+        if (history != null && !history.isEmpty()) {
+            try {
+                return draw(gameId, userIds, buildConstraints(players, history));
+            } catch (InfeasibleAssignmentException e) {
+                // Small repeat groups cannot avoid last year's pairs, so allow repeats
+            }
+        }
+        return draw(gameId, userIds, buildConstraints(players, null));
+    }
+
+    private List<Pair> draw(String gameId, List<String> userIds, BitSet[] forbidden) {
+        if (forbidden == null) {
+            return toPairs(gameId, userIds, Derangements.uniform(userIds.size(), newRandom()));
+        }
+        return toPairs(gameId, userIds, AssignmentSolver.solve(forbidden, newRandom()));
+    }
+
+    /**
+     * Pairs of the creator's most recent ended games, used to avoid repeats.
+     */
+    public List<Pair> loadHistory(Game game) {
+        if (historyGames <= 0 || game.getCreatorId() == null) {
+            return List.of();
+        }
+        List<String> gameIds = new ArrayList<>();
+        for (Game previous : gameRepository.findByCreatorIdAndStatusOrderByEndsAtDesc(
+                game.getCreatorId(), Game.Status.ENDED, PageRequest.of(0, historyGames))) {
+            if (!previous.getId().equals(game.getId())) {
+                gameIds.add(previous.getId());
+            }
+        }
+        return gameIds.isEmpty() ? List.of() : pairRepository.findByGameIdIn(gameIds);
+    }
+
+    /**
+     * Forbidden receivers per player index, or null when nothing is constrained.
+     */
+    private static BitSet[] buildConstraints(List<Player> players, Collection<Pair> history) {
+        int n = players.size();
+        Map<String, Integer> indexOf = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            indexOf.put(players.get(i).getUserId(), i);
+        }
+
+        BitSet[] forbidden = new BitSet[n];
+        boolean constrained = false;
+        Map<String, List<Integer>> teams = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            Player player = players.get(i);
+            if (player.getExcludedUserIds() != null) {
+                for (String excluded : player.getExcludedUserIds()) {
+                    Integer j = indexOf.get(excluded);
+                    if (j != null && j != i) {
+                        forbid(forbidden, i, j);
+                        forbid(forbidden, j, i);
+                        constrained = true;
+                    }
+                }
+            }
+            if (player.getTeam() != null) {
+                teams.computeIfAbsent(player.getTeam(), t -> new ArrayList<>()).add(i);
+            }
+        }
+
+        for (List<Integer> members : teams.values()) {
+            if (members.size() < 2) {
+                continue;
+            }
+            constrained = true;
+            for (int i : members) {
+                for (int j : members) {
+                    forbid(forbidden, i, j);
+                }
+            }
+        }
+
+        if (history != null) {
+            for (Pair pair : history) {
+                Integer gifter = indexOf.get(pair.getGifterId());
+                Integer receiver = indexOf.get(pair.getReceiverId());
+                if (gifter != null && receiver != null) {
+                    forbid(forbidden, gifter, receiver);
+                    constrained = true;
+                }
+            }
+        }
+        return constrained ? forbidden : null;
+    }
+
+    private static void forbid(BitSet[] forbidden, int gifter, int receiver) {
+        if (forbidden[gifter] == null) {
+            forbidden[gifter] = new BitSet();
+        }
+        forbidden[gifter].set(receiver);
+    }
+
+    private static List<Pair> toPairs(String gameId, List<String> userIds, int[] receivers) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Pair> pairs = new ArrayList<>(receivers.length);
+        for (int gifter = 0; gifter < receivers.length; gifter++) {
+            Pair pair = new Pair(gameId, userIds.get(gifter), userIds.get(receivers[gifter]));
+            pair.setCreatedAt(now);
+            pairs.add(pair);
+        }
+        return pairs;
+    }
+
+    private static void requireUnique(List<String> userIds) {
+        if (new HashSet<>(userIds).size() != userIds.size()) {
+            throw new IllegalArgumentException("Player list contains duplicate users");
+        }
+    }
+
+    // Seeded per draw so concurrent games never share generator state
+    private SplittableRandom newRandom() {
+        return new SplittableRandom(seedSource.nextLong());
+    }
+}
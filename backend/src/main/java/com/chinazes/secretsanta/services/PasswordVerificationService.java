@@ -0,0 +1,161 @@
+package com.chinazes.secretsanta.services;
+
+import com.chinazes.secretsanta.common.MetricsSource;
+import com.chinazes.secretsanta.common.ServiceBusyException;
+import com.chinazes.secretsanta.models.User;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs BCrypt checks on a dedicated bounded pool so login storms cannot take
+ * every request thread. Saturation is reported as ServiceBusyException.
+ */
+@Service
+public class PasswordVerificationService implements MetricsSource {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordVerificationService.class);
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$");
+
+    private final BCryptPasswordEncoder passwordEncoder;
+    private final MongoTemplate mongoTemplate;
+    private final ThreadPoolExecutor executor;
+    private final int strength;
+    private final long timeoutMillis;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder rehashed = new LongAdder();
+
+    public PasswordVerificationService(
+            BCryptPasswordEncoder passwordEncoder,
+            MongoTemplate mongoTemplate,
+            @Value("${security.password.bcrypt-strength:10}") int strength,
+            @Value("${security.password.workers:0}") int workers,
+            @Value("${security.password.queue-capacity:64}") int queueCapacity,
+            @Value("${security.password.timeout:5000}") long timeoutMillis
+    ) {
+        this.passwordEncoder = passwordEncoder;
+        this.mongoTemplate = mongoTemplate;
+        this.strength = strength;
+        this.timeoutMillis = timeoutMillis;
+
+        int poolSize = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bcrypt-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+    /**
+     * Check raw password against stored hash on the BCrypt pool.
+     */
+    public boolean matches(String rawPassword, String encodedPassword) {
+        Future<Boolean> result;
+        try {
+            result = executor.submit(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceBusyException("Too many login attempts in progress, try again shortly", 1);
+        }
+
+        try {
+            return result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            timedOut.increment();
+            throw new ServiceBusyException("Password check timed out, try again shortly", 1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Password check interrupted", 1);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password check failed", e.getCause());
+        }
+    }
+
+    /**
+     * Check if the hash was produced with a different BCrypt cost than configured.
+     */
+    public boolean needsRehash(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != strength;
+    }
+
+    /**
+     * Re-encode password with the current cost in the background.
+     * Only overwrites the hash it was computed from, so concurrent password changes win.
+     */
+    public void rehashAsync(User user, String rawPassword) {
+        String previousHash = user.getPassword();
+        try {
+            executor.execute(() -> {
+                String newHash = passwordEncoder.encode(rawPassword);
+                mongoTemplate.updateFirst(
+                        Query.query(Criteria.where("email").is(user.getEmail()).and("password").is(previousHash)),
+                        Update.update("password", newHash),
+                        User.class
+                );
+                rehashed.increment();
+            });
+        } catch (RejectedExecutionException e) {
+            // Pool is busy with logins — the next successful login will try again
+            log.debug("Skipping password rehash for {}: pool saturated", user.getId());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "passwordPool";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("poolSize", executor.getPoolSize());
+        metrics.put("active", executor.getActiveCount());
+        metrics.put("queued", executor.getQueue().size());
+        metrics.put("completed", executor.getCompletedTaskCount());
+        metrics.put("rejected", rejected.sum());
+        metrics.put("timedOut", timedOut.sum());
+        metrics.put("rehashed", rehashed.sum());
+        return metrics;
+    }
+}
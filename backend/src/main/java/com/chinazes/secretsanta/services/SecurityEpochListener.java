@@ -0,0 +1,25 @@
+package com.chinazes.secretsanta.services;
+
+import com.chinazes.secretsanta.models.User;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Feeds the revocation table with epochs of users saved on this instance.
+ */
+@Component
+public class SecurityEpochListener extends AbstractMongoEventListener<User> {
+
+    private final SecurityEpochRegistry securityEpochRegistry;
+
+    public SecurityEpochListener(SecurityEpochRegistry securityEpochRegistry) {
+        this.securityEpochRegistry = securityEpochRegistry;
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<User> event) {
+        User user = event.getSource();
+        securityEpochRegistry.record(user.getId(), user.getSecurityEpoch());
+    }
+}
@@ -0,0 +1,58 @@
+package com.chinazes.secretsanta.services;
+
+import com.chinazes.secretsanta.common.ExpiringCache;
+import com.chinazes.secretsanta.common.MetricsSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+
+/**
+ * In-memory revocation table of the latest known security epoch per user.
+ * Entries live as long as a token issued before the bump could still be valid.
+ */
+@Service
+public class SecurityEpochRegistry implements MetricsSource {
+
+    private final ExpiringCache<String, Long> epochs;
+    private final long retentionMillis;
+
+    public SecurityEpochRegistry(
+            @Value("${security.jwt.revocation-table-size:100000}") int tableSize,
+            @Value("${security.jwt.expiration-time}") long jwtExpiration
+    ) {
+        this.epochs = new ExpiringCache<>(tableSize);
+        this.retentionMillis = jwtExpiration;
+    }
+
+    /**
+     * Check if a token epoch is older than the latest one known for the user.
+     */
+    public boolean isStale(String userId, long tokenEpoch) {
+        Long known = epochs.get(userId);
+        return known != null && tokenEpoch < known;
+    }
+
+    /**
+     * Remember the current epoch of a user. Lower epochs never overwrite higher ones.
+     */
+    public void record(String userId, long epoch) {
+        if (userId == null || epoch <= 0) {
+            return;
+        }
+        Long known = epochs.get(userId);
+        if (known == null || known < epoch) {
+            epochs.put(userId, epoch, System.currentTimeMillis() + retentionMillis);
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "revocationTable";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        return epochs.stats();
+    }
+}
@@ -0,0 +1,123 @@
+package com.chinazes.secretsanta.services;
+
+import com.chinazes.secretsanta.common.ExpiringCache;
+import com.chinazes.secretsanta.common.MetricsSource;
+import com.chinazes.secretsanta.models.User;
+import com.chinazes.secretsanta.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read-through cache of User documents by email and id.
+ * Kept coherent across replicas by UserChangeStreamListener.
+ */
+@Service
+public class UserCacheService implements MetricsSource {
+
+    private final UserRepository userRepository;
+    private final ExpiringCache<String, User> usersById;
+    private final ExpiringCache<String, String> idsByEmail;
+    private final long ttlMillis;
+    private final LongAdder invalidations = new LongAdder();
+
+    // Bumped on every invalidation so a load racing with a change event is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    public UserCacheService(
+            UserRepository userRepository,
+            @Value("${users.cache.max-size:10000}") int maxSize,
+            @Value("${users.cache.ttl:300000}") long ttlMillis
+    ) {
+        this.userRepository = userRepository;
+        this.usersById = new ExpiringCache<>(maxSize);
+        this.idsByEmail = new ExpiringCache<>(maxSize);
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Find user by email, loading it from Mongo on a miss.
+     */
+    public Optional<User> findByEmail(String email) {
+        String id = idsByEmail.get(email);
+        if (id != null) {
+            User cached = usersById.get(id);
+            // Email may have changed since the index entry was written
+            if (cached != null && email.equals(cached.getEmail())) {
+                return Optional.of(cached);
+            }
+        }
+        long loadGeneration = generation.get();
+        Optional<User> user = userRepository.findByEmail(email);
+        user.ifPresent(u -> putIfCurrent(u, loadGeneration));
+        return user;
+    }
+
+    /**
+     * Find user by id, loading it from Mongo on a miss.
+     */
+    public Optional<User> findById(String id) {
+        User cached = usersById.get(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long loadGeneration = generation.get();
+        Optional<User> user = userRepository.findById(id);
+        user.ifPresent(u -> putIfCurrent(u, loadGeneration));
+        return user;
+    }
+
+    public void put(User user) {
+        if (user.getId() == null) {
+            return;
+        }
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        usersById.put(user.getId(), user, expiresAt);
+        if (user.getEmail() != null) {
+            idsByEmail.put(user.getEmail(), user.getId(), expiresAt);
+        }
+    }
+
+    private void putIfCurrent(User user, long loadGeneration) {
+        if (generation.get() == loadGeneration) {
+            put(user);
+        }
+    }
+
+    /**
+     * Drop a user from the cache. The email index entry is dropped too when known.
+     */
+    public void invalidate(String id) {
+        generation.incrementAndGet();
+        User removed = usersById.remove(id);
+        if (removed != null && removed.getEmail() != null) {
+            idsByEmail.invalidate(removed.getEmail());
+        }
+        invalidations.increment();
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        usersById.clear();
+        idsByEmail.clear();
+        invalidations.increment();
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "userCache";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>(usersById.stats());
+        metrics.put("emailIndex", idsByEmail.stats());
+        metrics.put("invalidations", invalidations.sum());
+        return metrics;
+    }
+}
@@ -0,0 +1,175 @@
+package com.chinazes.secretsanta.services;
+
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tails the users change stream and invalidates cached users on every replica.
+ * Also propagates security epoch bumps to the local revocation table.
+ */
+@Component
+public class UserChangeStreamListener implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(UserChangeStreamListener.class);
+
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    // Fields written by presence flushes only
+    private static final Set<String> PRESENCE_FIELDS = Set.of("isOnline", "presenceAt");
+
+    private final MongoTemplate mongoTemplate;
+    private final UserCacheService userCacheService;
+    private final SecurityEpochRegistry securityEpochRegistry;
+    private final boolean enabled;
+    private final long maxAwaitMillis;
+
+    private volatile boolean running;
+    private volatile Thread worker;
+    private BsonDocument resumeToken;
+
+    public UserChangeStreamListener(
+            MongoTemplate mongoTemplate,
+            UserCacheService userCacheService,
+            SecurityEpochRegistry securityEpochRegistry,
+            @Value("${users.cache.change-stream.enabled:true}") boolean enabled,
+            @Value("${users.cache.change-stream.max-await:500}") long maxAwaitMillis
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.userCacheService = userCacheService;
+        this.securityEpochRegistry = securityEpochRegistry;
+        this.enabled = enabled;
+        this.maxAwaitMillis = maxAwaitMillis;
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        worker = Thread.ofPlatform().daemon().name("users-change-stream").start(this::run);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread current = worker;
+        if (current != null) {
+            current.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        long backoff = 500;
+        int failures = 0;
+        boolean missedEvents = false;
+        while (running) {
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = openCursor()) {
+                if (missedEvents) {
+                    // Could not resume where we stopped, so nothing cached can be trusted
+                    userCacheService.invalidateAll();
+                    missedEvents = false;
+                }
+                backoff = 500;
+                failures = 0;
+                while (running) {
+                    ChangeStreamDocument<Document> event = cursor.tryNext();
+                    if (event != null) {
+                        handle(event);
+                        resumeToken = event.getResumeToken();
+                    }
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Users change stream interrupted, retrying in {} ms: {}", backoff, e.getMessage());
+                failures++;
+                if (failures > 1) {
+                    // Resume token may have fallen off the oplog — start over from now
+                    resumeToken = null;
+                }
+                if (resumeToken == null) {
+                    missedEvents = true;
+                }
+                sleep(backoff);
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+            }
+        }
+    }
+
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> openCursor() {
+        var stream = mongoTemplate.getCollection("users")
+                .watch(List.of(Aggregates.match(Filters.in("operationType", "update", "replace", "delete"))))
+                .maxAwaitTime(maxAwaitMillis, TimeUnit.MILLISECONDS);
+        if (resumeToken != null) {
+            stream = stream.resumeAfter(resumeToken);
+        }
+        return stream.cursor();
+    }
+
+    private void handle(ChangeStreamDocument<Document> event) {
+        BsonDocument key = event.getDocumentKey();
+        if (key == null || !key.containsKey("_id")) {
+            return;
+        }
+        BsonValue rawId = key.get("_id");
+        String userId = rawId.isObjectId() ? rawId.asObjectId().getValue().toHexString() : rawId.asString().getValue();
+        if (isPresenceOnly(event)) {
+            // Presence flushes would otherwise evict every online user on every replica
+            return;
+        }
+        userCacheService.invalidate(userId);
+
+        if (event.getOperationType() == OperationType.UPDATE && event.getUpdateDescription() != null) {
+            BsonDocument updated = event.getUpdateDescription().getUpdatedFields();
+            if (updated != null && updated.isNumber("securityEpoch")) {
+                securityEpochRegistry.record(userId, updated.getNumber("securityEpoch").longValue());
+            }
+        } else if (event.getOperationType() == OperationType.REPLACE && event.getFullDocument() != null) {
+            Object epoch = event.getFullDocument().get("securityEpoch");
+            if (epoch instanceof Number number) {
+                securityEpochRegistry.record(userId, number.longValue());
+            }
+        }
+    }
+
+    private static boolean isPresenceOnly(ChangeStreamDocument<Document> event) {
+        if (event.getOperationType() != OperationType.UPDATE || event.getUpdateDescription() == null) {
+            return false;
+        }
+        BsonDocument updated = event.getUpdateDescription().getUpdatedFields();
+        List<String> removed = event.getUpdateDescription().getRemovedFields();
+        return updated != null && !updated.isEmpty() && PRESENCE_FIELDS.containsAll(updated.keySet())
+                && (removed == null || removed.isEmpty());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.chinazes.secretsanta.services;
+
+import com.chinazes.secretsanta.models.Game;
+import com.chinazes.secretsanta.models.Pair;
+import com.chinazes.secretsanta.models.UserAssignment;
+import com.chinazes.secretsanta.models.UserGame;
+import com.chinazes.secretsanta.repositories.UserAssignmentRepository;
+import com.chinazes.secretsanta.repositories.UserGameRepository;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Maintains the user-keyed copies of pairs and players (userassignments, usergames).
+ * Both collections are sharded on userId, so per-user reads hit a single shard
+ * instead of fanning out over pairs and players. Writes use deterministic ids and
+ * upserts, so replaying them is harmless.
+ */
+@Service
+public class UserIndexService {
+
+    private final MongoTemplate mongoTemplate;
+    private final UserAssignmentRepository userAssignmentRepository;
+    private final UserGameRepository userGameRepository;
+
+    public UserIndexService(
+            MongoTemplate mongoTemplate,
+            UserAssignmentRepository userAssignmentRepository,
+            UserGameRepository userGameRepository
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.userAssignmentRepository = userAssignmentRepository;
+        this.userGameRepository = userGameRepository;
+    }
+
+    public List<UserAssignment> findAssignments(String userId) {
+        return userAssignmentRepository.findByUserIdOrderByCreatedAtDesc(userId);
+    }
+
+    public List<UserGame> findGames(String userId) {
+        return userGameRepository.findByUserIdOrderByJoinedAtDesc(userId);
+    }
+
+    public void onPlayerJoined(Game game, String userId) {
+        mongoTemplate.upsert(
+                byUser(UserGame.idFor(game.getId(), userId), userId),
+                new Update()
+                        .setOnInsert("gameId", game.getId())
+                        .setOnInsert("joinedAt", LocalDateTime.now())
+                        .set("gameName", game.getName())
+                        .set("status", game.getStatus()),
+                UserGame.class
+        );
+    }
+
+    /**
+     * Index freshly drawn pairs with one unordered bulk write.
+     */
+    public void onPairsCreated(Game game, List<Pair> pairs) {
+        if (!pairs.isEmpty()) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UserAssignment.class);
+            LocalDateTime now = LocalDateTime.now();
+            for (Pair pair : pairs) {
+                bulk.upsert(
+                        byUser(UserAssignment.idFor(game.getId(), pair.getGifterId()), pair.getGifterId()),
+                        new Update()
+                                .setOnInsert("gameId", game.getId())
+                                .setOnInsert("createdAt", now)
+                                .set("gameName", game.getName())
+                                .set("receiverId", pair.getReceiverId())
+                );
+            }
+            bulk.execute();
+        }
+        onStatusChanged(game.getId(), Game.Status.ACTIVE);
+    }
+
+    public void onPairsRemoved(String gameId) {
+        mongoTemplate.remove(Query.query(Criteria.where("gameId").is(gameId)), UserAssignment.class);
+        onStatusChanged(gameId, Game.Status.DRAFT);
+    }
+
+    public void onReceiverChanged(String gameId, String gifterId, String receiverId) {
+        mongoTemplate.updateFirst(
+                byUser(UserAssignment.idFor(gameId, gifterId), gifterId),
+                new Update().set("receiverId", receiverId),
+                UserAssignment.class
+        );
+    }
+
+    /**
+     * Copy a game status to every player's entry. Fans out over shards,
+     * but happens a couple of times per game rather than on every dashboard load.
+     */
+    public void onStatusChanged(String gameId, Game.Status status) {
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("gameId").is(gameId)),
+                new Update().set("status", status),
+                UserGame.class
+        );
+    }
+
+    private static Query byUser(String id, String userId) {
+        // The shard key makes upserts and updates target a single shard
+        return Query.query(Criteria.where("userId").is(userId).and("_id").is(id));
+    }
+}
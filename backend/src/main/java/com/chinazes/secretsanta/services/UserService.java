@@ -6,13 +6,20 @@ import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 public class UserService {
     private final UserRepository userRepository;
+    private final UserCacheService userCacheService;
 
-    public UserService(UserRepository userRepository, EmailService emailService) {
+    public UserService(UserRepository userRepository, UserCacheService userCacheService) {
         this.userRepository = userRepository;
+        this.userCacheService = userCacheService;
+    }
+
+    public Optional<User> findByEmail(String email) {
+        return userCacheService.findByEmail(email);
     }
 
     public List<User> allUsers() {
@@ -0,0 +1,73 @@
+package com.chinazes.secretsanta.services;
+
+import com.chinazes.secretsanta.models.User;
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable result of a successful JWT signature and expiry check.
+ */
+public final class VerifiedToken {
+
+    private final String subject;
+    private final Instant issuedAt;
+    private final Instant expiresAt;
+    private final Map<String, Object> claims;
+
+    VerifiedToken(Claims claims) {
+        this.subject = claims.getSubject();
+        this.issuedAt = claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null;
+        this.expiresAt = claims.getExpiration().toInstant();
+        this.claims = Collections.unmodifiableMap(new HashMap<>(claims));
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public Instant getIssuedAt() {
+        return issuedAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public Map<String, Object> getClaims() {
+        return claims;
+    }
+
+    public String getUserId() {
+        Object value = claims.get(JwtService.CLAIM_USER_ID);
+        return value != null ? value.toString() : null;
+    }
+
+    public User.Role getRole() {
+        Object value = claims.get(JwtService.CLAIM_ROLE);
+        return value != null ? User.Role.valueOf(value.toString()) : null;
+    }
+
+    /**
+     * Security epoch the token was issued for, or null for tokens without identity claims.
+     */
+    public Long getSecurityEpoch() {
+        Object value = claims.get(JwtService.CLAIM_SECURITY_EPOCH);
+        return value instanceof Number number ? number.longValue() : null;
+    }
+
+    /**
+     * Check if the token carries everything needed to build a principal without a lookup.
+     */
+    public boolean isSelfContained() {
+        return subject != null && getUserId() != null && getSecurityEpoch() != null
+                && claims.get(JwtService.CLAIM_ROLE) != null;
+    }
+
+    public boolean isExpired() {
+        return !expiresAt.isAfter(Instant.now());
+    }
+}
@@ -0,0 +1,262 @@
+package com.chinazes.secretsanta.ws;
+
+import com.chinazes.secretsanta.common.ChangeStreams;
+import com.chinazes.secretsanta.common.MetricsSource;
+import com.chinazes.secretsanta.models.Message;
+import com.chinazes.secretsanta.models.StreamCheckpoint;
+import com.chinazes.secretsanta.repositories.StreamCheckpointRepository;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Delivers chat messages stored by other replicas to sockets on this one.
+ * Tails inserts on messages, filtered to the games that have local sockets. The filter
+ * only has to grow: when a game gains its first local socket the resume token stops advancing
+ * and, after a short debounce, the stream is reopened from the token held before that batch.
+ * A burst of joins costs one reopen, and inserts for the new game written during the debounce
+ * are replayed; inserts for the other games are replayed too and dropped by ChatFanout's
+ * dedupe. Rooms that close stay in the filter until then; ChatFanout skips games without
+ * local sockets.
+ *
+ * Guarantee: within a running instance no insert is missed across reopens and transient
+ * errors, as long as the resume token is still in the oplog. When the server reports the
+ * history as lost the stream starts over from now and clients catch up through the history
+ * endpoint. The checkpoint only helps a restart under the same checkpoint id (a StatefulSet
+ * name or an explicit CHAT_WS_BRIDGE_CHECKPOINT_ID); with per-pod hostnames a restarted pod
+ * starts from now, and its reconnecting clients catch up through the history endpoint.
+ * Stale checkpoints expire through the TTL index on updatedAt.
+ */
+@Component
+public class ChatChangeStreamBridge implements SmartLifecycle, MetricsSource {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatChangeStreamBridge.class);
+
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private final MongoTemplate mongoTemplate;
+    private final RoomRegistry roomRegistry;
+    private final ChatFanout chatFanout;
+    private final StreamCheckpointRepository checkpointRepository;
+    private final boolean enabled;
+    private final String checkpointId;
+    private final long maxAwaitMillis;
+    private final long checkpointIntervalMillis;
+    private final long maxResumeAgeMillis;
+    private final int maxFilterGames;
+    private final long reopenDelayMillis;
+
+    private final LongAdder received = new LongAdder();
+    private final LongAdder reopens = new LongAdder();
+
+    private volatile boolean running;
+    private volatile Thread worker;
+    private BsonDocument resumeToken;
+    private String checkpointedToken;
+    private long lastCheckpointAt;
+
+    public ChatChangeStreamBridge(
+            MongoTemplate mongoTemplate,
+            RoomRegistry roomRegistry,
+            ChatFanout chatFanout,
+            StreamCheckpointRepository checkpointRepository,
+            @Value("${chat.ws.bridge.enabled:true}") boolean enabled,
+            @Value("${chat.ws.bridge.checkpoint-id:${HOSTNAME:local}}") String checkpointId,
+            @Value("${chat.ws.bridge.max-await:200}") long maxAwaitMillis,
+            @Value("${chat.ws.bridge.checkpoint-interval:1000}") long checkpointIntervalMillis,
+            @Value("${chat.ws.bridge.max-resume-age:300000}") long maxResumeAgeMillis,
+            @Value("${chat.ws.bridge.max-filter-games:1000}") int maxFilterGames,
+            @Value("${chat.ws.bridge.reopen-delay:250}") long reopenDelayMillis
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.roomRegistry = roomRegistry;
+        this.chatFanout = chatFanout;
+        this.checkpointRepository = checkpointRepository;
+        this.enabled = enabled;
+        this.checkpointId = "chat:" + checkpointId;
+        this.maxAwaitMillis = maxAwaitMillis;
+        this.checkpointIntervalMillis = checkpointIntervalMillis;
+        this.maxResumeAgeMillis = maxResumeAgeMillis;
+        this.maxFilterGames = maxFilterGames;
+        this.reopenDelayMillis = reopenDelayMillis;
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        worker = Thread.ofPlatform().daemon().name("chat-change-stream").start(this::run);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread current = worker;
+        if (current != null) {
+            current.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        loadCheckpoint();
+        long backoff = 500;
+        while (running) {
+            long checkedVersion = roomRegistry.roomsVersion();
+            Set<String> filtered = roomRegistry.activeRooms();
+            boolean unfiltered = filtered.size() > maxFilterGames;
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = openCursor(filtered, unfiltered)) {
+                backoff = 500;
+                if (resumeToken == null) {
+                    resumeToken = cursor.getResumeToken();
+                }
+                long reopenAt = -1;
+                while (running && (reopenAt < 0 || System.currentTimeMillis() < reopenAt)) {
+                    ChangeStreamDocument<Document> event = cursor.tryNext();
+                    if (event != null) {
+                        handle(event);
+                    }
+                    long version = roomRegistry.roomsVersion();
+                    if (version != checkedVersion) {
+                        checkedVersion = version;
+                        if (reopenAt < 0 && !unfiltered && !filtered.containsAll(roomRegistry.activeRooms())) {
+                            reopenAt = System.currentTimeMillis() + reopenDelayMillis;
+                        }
+                    }
+                    // Advances on empty batches too, so an idle stream still checkpoints a recent position.
+                    // Frozen once a reopen is pending: the batch that saw the new room may already be past
+                    // inserts the old filter dropped, so the reopened stream replays from before it
+                    if (reopenAt < 0 && cursor.getResumeToken() != null) {
+                        resumeToken = cursor.getResumeToken();
+                    }
+                    checkpoint(false);
+                }
+                reopens.increment();
+            } catch (Exception e) {
+                if (!running) {
+                    break;
+                }
+                log.warn("Chat change stream interrupted, retrying in {} ms: {}", backoff, e.getMessage());
+                if (ChangeStreams.isHistoryLost(e)) {
+                    // Resume token has fallen off the oplog — start over from now
+                    log.warn("Chat change stream history lost, messages since {} are only available through history",
+                            checkpointedToken);
+                    resumeToken = null;
+                }
+                sleep(backoff);
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+            }
+        }
+        checkpoint(true);
+    }
+
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> openCursor(Set<String> gameIds, boolean unfiltered) {
+        List<Bson> pipeline = new ArrayList<>();
+        if (!unfiltered) {
+            pipeline.add(Aggregates.match(Filters.and(
+                    Filters.eq("operationType", "insert"),
+                    Filters.in("fullDocument.gameId", gameIds))));
+        } else {
+            // Too many games for a useful $in; ChatFanout skips games without local sockets
+            pipeline.add(Aggregates.match(Filters.eq("operationType", "insert")));
+        }
+        var stream = mongoTemplate.getCollection("messages")
+                .watch(pipeline)
+                .maxAwaitTime(maxAwaitMillis, TimeUnit.MILLISECONDS);
+        if (resumeToken != null) {
+            stream = stream.resumeAfter(resumeToken);
+        }
+        return stream.cursor();
+    }
+
+    private void handle(ChangeStreamDocument<Document> event) {
+        Document document = event.getFullDocument();
+        if (document == null) {
+            return;
+        }
+        received.increment();
+        chatFanout.deliver(mongoTemplate.getConverter().read(Message.class, document));
+    }
+
+    private void loadCheckpoint() {
+        try {
+            checkpointRepository.findById(checkpointId)
+                    .filter(checkpoint -> checkpoint.getUpdatedAt() != null
+                            && checkpoint.getUpdatedAt().isAfter(LocalDateTime.now().minus(Duration.ofMillis(maxResumeAgeMillis))))
+                    .ifPresent(checkpoint -> {
+                        resumeToken = new BsonDocument("_data", new BsonString(checkpoint.getResumeToken()));
+                        checkpointedToken = checkpoint.getResumeToken();
+                    });
+        } catch (Exception e) {
+            log.warn("Could not load chat stream checkpoint, starting from now: {}", e.getMessage());
+        }
+    }
+
+    private void checkpoint(boolean force) {
+        long now = System.currentTimeMillis();
+        if (resumeToken == null || !resumeToken.isString("_data")
+                || (!force && now - lastCheckpointAt < checkpointIntervalMillis)) {
+            return;
+        }
+        lastCheckpointAt = now;
+        String token = resumeToken.getString("_data").getValue();
+        if (token.equals(checkpointedToken)) {
+            return;
+        }
+        try {
+            checkpointRepository.save(new StreamCheckpoint(checkpointId, token));
+            checkpointedToken = token;
+        } catch (Exception e) {
+            log.warn("Could not save chat stream checkpoint: {}", e.getMessage());
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "chatStream";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("received", received.sum());
+        metrics.put("reopens", reopens.sum());
+        metrics.put("resumable", resumeToken != null);
+        return metrics;
+    }
+}
@@ -0,0 +1,104 @@
+package com.chinazes.secretsanta.ws;
+
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One chat socket with its own bounded outbound queue.
+ * Broadcasters only enqueue; a task on the shared executor drains the queue, so a
+ * slow client never blocks the room. A client whose queue overflows is disconnected.
+ */
+public class ChatConnection {
+
+    private final WebSocketSession session;
+    private final String userId;
+    private final ArrayBlockingQueue<WebSocketMessage<?>> outbound;
+    private final Executor executor;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final Set<String> rooms = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    public ChatConnection(WebSocketSession session, String userId, int queueSize, Executor executor) {
+        this.session = session;
+        this.userId = userId;
+        this.outbound = new ArrayBlockingQueue<>(queueSize);
+        this.executor = executor;
+    }
+
+    /**
+     * Queue a frame without blocking. Returns false if the connection is closed or was just dropped.
+     */
+    public boolean send(WebSocketMessage<?> message) {
+        if (closed) {
+            return false;
+        }
+        if (!outbound.offer(message)) {
+            close(CloseStatus.SESSION_NOT_RELIABLE);
+            return false;
+        }
+        if (draining.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+        return true;
+    }
+
+    /**
+     * Close the socket from the executor; the container then reports it closed to the handler.
+     */
+    public void close(CloseStatus status) {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        outbound.clear();
+        executor.execute(() -> {
+            try {
+                session.close(status);
+            } catch (IOException ignored) {
+                // Already gone
+            }
+        });
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getId() {
+        return session.getId();
+    }
+
+    Set<String> getRooms() {
+        return rooms;
+    }
+
+    int pending() {
+        return outbound.size();
+    }
+
+    private void drain() {
+        while (true) {
+            WebSocketMessage<?> message;
+            while (!closed && (message = outbound.poll()) != null) {
+                try {
+                    session.sendMessage(message);
+                } catch (IOException | RuntimeException e) {
+                    close(CloseStatus.SESSION_NOT_RELIABLE);
+                }
+            }
+            draining.set(false);
+            // A frame queued after the last poll but before the flag dropped would be stranded
+            if (closed || outbound.isEmpty() || !draining.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.chinazes.secretsanta.ws;
+
+import com.chinazes.secretsanta.common.ExpiringCache;
+import com.chinazes.secretsanta.common.MetricsSource;
+import com.chinazes.secretsanta.models.Message;
+import com.chinazes.secretsanta.services.ChatMessageEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pushes stored chat messages to local sockets.
+ * Messages arrive twice on the instance that stored them (the local event and the
+ * change stream), so each id is delivered once within the dedupe window.
+ */
+@Component
+public class ChatFanout implements MetricsSource {
+
+    private final RoomRegistry roomRegistry;
+    private final ObjectMapper objectMapper;
+    private final ExpiringCache<String, Boolean> delivered;
+    private final long dedupeWindowMillis;
+    private final LongAdder duplicates = new LongAdder();
+
+    public ChatFanout(
+            RoomRegistry roomRegistry,
+            ObjectMapper objectMapper,
+            @Value("${chat.ws.dedupe-size:100000}") int dedupeSize,
+            @Value("${chat.ws.dedupe-window:60000}") long dedupeWindowMillis
+    ) {
+        this.roomRegistry = roomRegistry;
+        this.objectMapper = objectMapper;
+        this.delivered = new ExpiringCache<>(dedupeSize);
+        this.dedupeWindowMillis = dedupeWindowMillis;
+    }
+
+    @EventListener
+    public void onChatMessage(ChatMessageEvent event) {
+        deliver(event.message());
+    }
+
+    /**
+     * Push a message to everyone in its room. Serialized once for the whole room.
+     */
+    public void deliver(Message message) {
+        if (roomRegistry.roomSize(message.getGameId()) == 0) {
+            return;
+        }
+        if (message.getId() != null
+                && !delivered.putIfAbsent(message.getId(), Boolean.TRUE, System.currentTimeMillis() + dedupeWindowMillis)) {
+            duplicates.increment();
+            return;
+        }
+        Map<String, Object> frame = new LinkedHashMap<>();
+        frame.put("type", "message");
+        frame.put("gameId", message.getGameId());
+        frame.put("id", message.getId());
+        frame.put("userId", message.getUserId());
+        frame.put("messageEncrypted", message.getMessageEncrypted());
+        frame.put("createdAt", message.getCreatedAt());
+        roomRegistry.broadcast(message.getGameId(), toFrame(frame));
+    }
+
+    TextMessage toFrame(Map<String, Object> frame) {
+        try {
+            return new TextMessage(objectMapper.writeValueAsString(frame));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize chat frame", e);
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "chatFanout";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>(delivered.stats());
+        metrics.put("duplicates", duplicates.sum());
+        return metrics;
+    }
+}
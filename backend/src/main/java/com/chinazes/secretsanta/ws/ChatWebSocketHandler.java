@@ -0,0 +1,155 @@
+package com.chinazes.secretsanta.ws;
+
+import com.chinazes.secretsanta.common.CurrentUser;
+import com.chinazes.secretsanta.services.ChatService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.SubProtocolCapable;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Game chat over a plain WebSocket with JSON frames.
+ * Clients send {"type":"join"|"leave","gameId":...}, {"type":"send","gameId":...,"messageEncrypted":...}
+ * and {"type":"ping"}; the server pushes "message", "direct", "presence", "joined", "pong" and "error" frames.
+ * The handshake is authenticated by JwtAuthenticationFilter like any other request, with the token
+ * offered as a subprotocol: new WebSocket(url, ["bearer", token]). Stored messages reach sockets through ChatFanout.
+ */
+@Component
+public class ChatWebSocketHandler extends TextWebSocketHandler implements SubProtocolCapable {
+
+    /**
+     * Subprotocol the client offers first, followed by its JWT; the server selects it.
+     */
+    public static final String TOKEN_PROTOCOL = "bearer";
+
+    private static final String CONNECTION = "chatConnection";
+
+    private final RoomRegistry roomRegistry;
+    private final UserSessionRegistry userSessionRegistry;
+    private final PresenceService presenceService;
+    private final ChatFanout chatFanout;
+    private final ChatService chatService;
+    private final ObjectMapper objectMapper;
+
+    public ChatWebSocketHandler(
+            RoomRegistry roomRegistry,
+            UserSessionRegistry userSessionRegistry,
+            PresenceService presenceService,
+            ChatFanout chatFanout,
+            ChatService chatService,
+            ObjectMapper objectMapper
+    ) {
+        this.roomRegistry = roomRegistry;
+        this.userSessionRegistry = userSessionRegistry;
+        this.presenceService = presenceService;
+        this.chatFanout = chatFanout;
+        this.chatService = chatService;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public List<String> getSubProtocols() {
+        return List.of(TOKEN_PROTOCOL);
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        Authentication authentication = session.getPrincipal() instanceof Authentication auth ? auth : null;
+        String userId = authentication != null ? CurrentUser.idOf(authentication.getPrincipal()) : null;
+        if (userId == null) {
+            session.close(CloseStatus.POLICY_VIOLATION);
+            return;
+        }
+        ChatConnection connection = roomRegistry.open(session, userId);
+        session.getAttributes().put(CONNECTION, connection);
+        userSessionRegistry.register(connection);
+        // The principal name is the JWT subject, i.e. the user's email
+        presenceService.connected(userId, authentication.getName());
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage frame) {
+        ChatConnection connection = (ChatConnection) session.getAttributes().get(CONNECTION);
+        if (connection == null) {
+            return;
+        }
+        JsonNode request;
+        try {
+            request = objectMapper.readTree(frame.getPayload());
+        } catch (JsonProcessingException e) {
+            reply(connection, "error", null, "Malformed frame");
+            return;
+        }
+        String type = request.path("type").asText();
+        if ("ping".equals(type)) {
+            reply(connection, "pong", null, null);
+            return;
+        }
+        String gameId = request.path("gameId").asText(null);
+        if (gameId == null) {
+            reply(connection, "error", null, "gameId is required");
+            return;
+        }
+
+        try {
+            switch (type) {
+                case "join" -> {
+                    chatService.requirePlayer(gameId, connection.getUserId());
+                    roomRegistry.join(gameId, connection);
+                    presenceService.joinedRoom(connection.getUserId(), gameId);
+                    reply(connection, "joined", gameId, null);
+                }
+                case "leave" -> roomRegistry.leave(gameId, connection);
+                case "send" -> chatService
+                        .send(gameId, connection.getUserId(), request.path("messageEncrypted").asText(null))
+                        .exceptionally(e -> {
+                            reply(connection, "error", gameId, causeOf(e).getMessage());
+                            return null;
+                        });
+                default -> reply(connection, "error", gameId, "Unknown frame type");
+            }
+        } catch (RuntimeException e) {
+            reply(connection, "error", gameId, e.getMessage());
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        ChatConnection connection = (ChatConnection) session.getAttributes().remove(CONNECTION);
+        if (connection != null) {
+            roomRegistry.closed(connection);
+            userSessionRegistry.unregister(connection);
+            presenceService.disconnected(connection.getUserId());
+        }
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
+        session.close(CloseStatus.SERVER_ERROR);
+    }
+
+    private void reply(ChatConnection connection, String type, String gameId, String error) {
+        Map<String, Object> frame = new LinkedHashMap<>();
+        frame.put("type", type);
+        frame.put("gameId", gameId);
+        if (error != null) {
+            frame.put("error", error);
+        }
+        connection.send(chatFanout.toFrame(frame));
+    }
+
+    private static Throwable causeOf(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+}
@@ -0,0 +1,237 @@
+package com.chinazes.secretsanta.ws;
+
+import com.chinazes.secretsanta.common.ChangeStreams;
+import com.chinazes.secretsanta.common.MetricsSource;
+import com.chinazes.secretsanta.models.DirectMessage;
+import com.chinazes.secretsanta.models.NodeInboxEntry;
+import com.chinazes.secretsanta.services.DirectMessageEvent;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Delivers frames addressed to a single user, such as direct messages.
+ * Local sockets get the frame directly; for every other instance that holds a socket
+ * of the user one entry goes to nodeinbox, which only that instance tails.
+ * Instances without a socket of the user never see the frame.
+ * Room frames that are not chat messages, such as presence, go the same way to every
+ * other instance with registered sockets, which hands them to its local room.
+ */
+@Component
+public class DirectRouter implements SmartLifecycle, MetricsSource {
+
+    private static final Logger log = LoggerFactory.getLogger(DirectRouter.class);
+
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private final MongoTemplate mongoTemplate;
+    private final UserSessionRegistry sessions;
+    private final RoomRegistry roomRegistry;
+    private final ChatFanout chatFanout;
+    private final boolean enabled;
+    private final long maxAwaitMillis;
+
+    private final LongAdder local = new LongAdder();
+    private final LongAdder forwarded = new LongAdder();
+    private final LongAdder roomsForwarded = new LongAdder();
+    private final LongAdder received = new LongAdder();
+
+    private volatile boolean running;
+    private volatile Thread worker;
+    private BsonDocument resumeToken;
+
+    public DirectRouter(
+            MongoTemplate mongoTemplate,
+            UserSessionRegistry sessions,
+            RoomRegistry roomRegistry,
+            ChatFanout chatFanout,
+            @Value("${chat.direct.enabled:true}") boolean enabled,
+            @Value("${chat.direct.max-await:200}") long maxAwaitMillis
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.sessions = sessions;
+        this.roomRegistry = roomRegistry;
+        this.chatFanout = chatFanout;
+        this.enabled = enabled;
+        this.maxAwaitMillis = maxAwaitMillis;
+    }
+
+    @EventListener
+    public void onDirectMessage(DirectMessageEvent event) {
+        DirectMessage message = event.message();
+        Map<String, Object> frame = new LinkedHashMap<>();
+        frame.put("type", "direct");
+        frame.put("gameId", message.getGameId());
+        frame.put("id", message.getId());
+        frame.put("senderId", message.getSenderId());
+        frame.put("messageEncrypted", message.getMessageEncrypted());
+        frame.put("createdAt", message.getCreatedAt());
+        route(message.getReceiverId(), chatFanout.toFrame(frame));
+    }
+
+    /**
+     * Send a frame to every socket of a user, wherever it is connected.
+     */
+    public void route(String userId, TextMessage frame) {
+        deliverLocally(userId, frame);
+        Set<String> nodes = sessions.remoteNodesOf(userId);
+        if (nodes.isEmpty()) {
+            return;
+        }
+        List<NodeInboxEntry> entries = new ArrayList<>(nodes.size());
+        for (String node : nodes) {
+            entries.add(new NodeInboxEntry(node, userId, frame.getPayload()));
+        }
+        mongoTemplate.insert(entries, NodeInboxEntry.class);
+        forwarded.add(entries.size());
+    }
+
+    /**
+     * Send frames to every socket of their rooms on all instances, keyed by game id.
+     * One insert covers all rooms and instances.
+     */
+    public void routeToRooms(Map<String, TextMessage> frames) {
+        frames.forEach(roomRegistry::broadcast);
+        Set<String> nodes = sessions.remoteNodes();
+        if (nodes.isEmpty() || frames.isEmpty()) {
+            return;
+        }
+        List<NodeInboxEntry> entries = new ArrayList<>(nodes.size() * frames.size());
+        for (String node : nodes) {
+            frames.forEach((gameId, frame) -> entries.add(NodeInboxEntry.toRoom(node, gameId, frame.getPayload())));
+        }
+        mongoTemplate.insert(entries, NodeInboxEntry.class);
+        roomsForwarded.add(entries.size());
+    }
+
+    private void deliverLocally(String userId, TextMessage frame) {
+        for (ChatConnection connection : sessions.localConnections(userId)) {
+            if (connection.send(frame)) {
+                local.increment();
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        worker = Thread.ofPlatform().daemon().name("node-inbox").start(this::run);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread current = worker;
+        if (current != null) {
+            current.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Tail this instance's inbox. Nothing is addressed to the node before start, since the
+     * node id is new per process, so the first stream opens at now. Reconnects resume from
+     * the last resume token, so entries written while the stream was down are still delivered.
+     */
+    private void run() {
+        long backoff = 500;
+        while (running) {
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = openCursor()) {
+                backoff = 500;
+                if (resumeToken == null) {
+                    resumeToken = cursor.getResumeToken();
+                }
+                while (running) {
+                    ChangeStreamDocument<Document> event = cursor.tryNext();
+                    Document entry = event != null ? event.getFullDocument() : null;
+                    if (entry != null) {
+                        received.increment();
+                        TextMessage frame = new TextMessage(entry.getString("payload"));
+                        String gameId = entry.getString("gameId");
+                        if (gameId != null) {
+                            roomRegistry.broadcast(gameId, frame);
+                        } else {
+                            deliverLocally(entry.getString("userId"), frame);
+                        }
+                    }
+                    // Advances on empty batches too, so a reconnect after a quiet period has little to replay
+                    if (cursor.getResumeToken() != null) {
+                        resumeToken = cursor.getResumeToken();
+                    }
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Node inbox stream interrupted, retrying in {} ms: {}", backoff, e.getMessage());
+                if (ChangeStreams.isHistoryLost(e)) {
+                    log.warn("Node inbox history lost, entries written while the stream was down are dropped");
+                    resumeToken = null;
+                }
+                sleep(backoff);
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+            }
+        }
+    }
+
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> openCursor() {
+        var stream = mongoTemplate.getCollection("nodeinbox")
+                .watch(List.of(Aggregates.match(Filters.and(
+                        Filters.eq("operationType", "insert"),
+                        Filters.eq("fullDocument.nodeId", sessions.getNodeId())))))
+                .maxAwaitTime(maxAwaitMillis, TimeUnit.MILLISECONDS);
+        if (resumeToken != null) {
+            stream = stream.resumeAfter(resumeToken);
+        }
+        return stream.cursor();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "directRouting";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("deliveredLocally", local.sum());
+        metrics.put("forwarded", forwarded.sum());
+        metrics.put("roomsForwarded", roomsForwarded.sum());
+        metrics.put("receivedFromInbox", received.sum());
+        return metrics;
+    }
+}
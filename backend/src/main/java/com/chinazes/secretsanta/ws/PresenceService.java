@@ -0,0 +1,257 @@
+package com.chinazes.secretsanta.ws;
+
+import com.chinazes.secretsanta.common.MetricsSource;
+import com.chinazes.secretsanta.models.User;
+import com.chinazes.secretsanta.models.UserSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.TextMessage;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps User.isOnline and room presence frames in step with sockets on this instance.
+ * Changes are collected by a PresenceTracker and flushed periodically: one bulk update
+ * of users and at most one presence frame per room per flush. Frames reach the room's
+ * sockets on other instances through DirectRouter's nodeinbox.
+ * Users left online by an instance that died are reset by a periodic reconcile against
+ * live usersessions entries.
+ */
+@Component
+public class PresenceService implements MetricsSource {
+
+    private static final Logger log = LoggerFactory.getLogger(PresenceService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final UserSessionRegistry userSessionRegistry;
+    private final DirectRouter directRouter;
+    private final ChatFanout chatFanout;
+    private final PresenceTracker tracker;
+    private final int reconcileBatchSize;
+    private final long reconcileMinAgeMillis;
+    private String reconcileAfterId;
+
+    private final LongAdder wentOnline = new LongAdder();
+    private final LongAdder wentOffline = new LongAdder();
+    private final LongAdder stillOnlineElsewhere = new LongAdder();
+    private final LongAdder frames = new LongAdder();
+    private final LongAdder reconciled = new LongAdder();
+
+    public PresenceService(
+            MongoTemplate mongoTemplate,
+            UserSessionRegistry userSessionRegistry,
+            DirectRouter directRouter,
+            ChatFanout chatFanout,
+            @Value("${chat.presence.grace-period:10000}") long graceMillis,
+            @Value("${chat.presence.reconcile-batch-size:1000}") int reconcileBatchSize,
+            @Value("${chat.presence.reconcile-min-age:60000}") long reconcileMinAgeMillis
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.userSessionRegistry = userSessionRegistry;
+        this.directRouter = directRouter;
+        this.chatFanout = chatFanout;
+        this.tracker = new PresenceTracker(graceMillis);
+        this.reconcileBatchSize = reconcileBatchSize;
+        this.reconcileMinAgeMillis = reconcileMinAgeMillis;
+    }
+
+    public void connected(String userId, String email) {
+        tracker.connected(userId, email);
+    }
+
+    public void disconnected(String userId) {
+        tracker.disconnected(userId, System.currentTimeMillis());
+    }
+
+    public void joinedRoom(String userId, String gameId) {
+        tracker.joinedRoom(userId, gameId);
+    }
+
+    @Scheduled(fixedDelayString = "${chat.presence.flush-interval:2000}")
+    public void flush() {
+        List<PresenceTracker.Transition> transitions = tracker.drainTransitions(System.currentTimeMillis());
+        if (transitions.isEmpty()) {
+            return;
+        }
+        Set<String> elsewhere = onlineElsewhere(transitions);
+        List<PresenceTracker.Transition> effective = new ArrayList<>(transitions.size());
+        for (PresenceTracker.Transition transition : transitions) {
+            if (!transition.online() && elsewhere.contains(transition.userId())) {
+                stillOnlineElsewhere.increment();
+            } else {
+                effective.add(transition);
+            }
+        }
+        writeUsers(effective);
+        broadcast(effective);
+    }
+
+    /**
+     * Users leaving this instance that still have a live socket on another one.
+     */
+    private Set<String> onlineElsewhere(List<PresenceTracker.Transition> transitions) {
+        List<String> leaving = new ArrayList<>();
+        for (PresenceTracker.Transition transition : transitions) {
+            if (!transition.online()) {
+                leaving.add(transition.userId());
+            }
+        }
+        Set<String> online = new HashSet<>();
+        if (leaving.isEmpty()) {
+            return online;
+        }
+        Query query = Query.query(Criteria.where("userId").in(leaving)
+                .and("nodeId").ne(userSessionRegistry.getNodeId())
+                .and("expiresAt").gt(LocalDateTime.now()));
+        query.fields().include("userId");
+        for (UserSession session : mongoTemplate.find(query, UserSession.class)) {
+            online.add(session.getUserId());
+        }
+        return online;
+    }
+
+    /**
+     * Reset isOnline of users without a live socket anywhere, e.g. after an instance crashed.
+     * Sessions expire after chat.sessions.ttl, so a dead instance's users are reset within
+     * one TTL plus one reconcile interval.
+     * Each reset is conditional on the presenceAt read at the start of the pass, so a user
+     * flushed online by any instance in the meantime keeps isOnline. Users flushed within
+     * chat.presence.reconcile-min-age are skipped, since their session entry may not be
+     * written yet.
+     */
+    @Scheduled(initialDelayString = "${chat.presence.reconcile-interval:300000}",
+            fixedDelayString = "${chat.presence.reconcile-interval:300000}")
+    public void reconcile() {
+        try {
+            // Walks the online users a batch per run in _id order, wrapping around at the end
+            Criteria criteria = Criteria.where("isOnline").is(true);
+            if (reconcileAfterId != null) {
+                criteria = criteria.and("_id").gt(reconcileAfterId);
+            }
+            Query online = Query.query(criteria).with(Sort.by("_id")).limit(reconcileBatchSize);
+            online.fields().include("_id").include("email").include("presenceAt");
+            List<User> users = mongoTemplate.find(online, User.class);
+            reconcileAfterId = users.size() < reconcileBatchSize ? null : users.get(users.size() - 1).getId();
+            LocalDateTime settledBefore = LocalDateTime.now().minus(Duration.ofMillis(reconcileMinAgeMillis));
+            Map<String, User> candidates = new HashMap<>();
+            for (User user : users) {
+                if (!tracker.isTracked(user.getId())
+                        && (user.getPresenceAt() == null || user.getPresenceAt().isBefore(settledBefore))) {
+                    candidates.put(user.getId(), user);
+                }
+            }
+            if (candidates.isEmpty()) {
+                return;
+            }
+            Query live = Query.query(Criteria.where("userId").in(candidates.keySet())
+                    .and("expiresAt").gt(LocalDateTime.now()));
+            live.fields().include("userId");
+            for (UserSession session : mongoTemplate.find(live, UserSession.class)) {
+                candidates.remove(session.getUserId());
+            }
+            if (candidates.isEmpty()) {
+                return;
+            }
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class);
+            candidates.values().forEach(user -> bulk.updateOne(
+                    Query.query(byUser(user.getId(), user.getEmail())
+                            .and("isOnline").is(true)
+                            .and("presenceAt").is(user.getPresenceAt())),
+                    new Update().set("isOnline", false)));
+            reconciled.add(bulk.execute().getModifiedCount());
+        } catch (RuntimeException e) {
+            log.warn("Presence reconcile failed: {}", e.getMessage());
+        }
+    }
+
+    private void writeUsers(List<PresenceTracker.Transition> transitions) {
+        if (transitions.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class);
+        LocalDateTime now = LocalDateTime.now();
+        for (PresenceTracker.Transition transition : transitions) {
+            bulk.updateOne(Query.query(byUser(transition.userId(), transition.email())),
+                    new Update().set("isOnline", transition.online()).set("presenceAt", now));
+            (transition.online() ? wentOnline : wentOffline).increment();
+        }
+        try {
+            bulk.execute();
+        } catch (RuntimeException e) {
+            log.warn("Could not flush presence of {} users: {}", transitions.size(), e.getMessage());
+        }
+    }
+
+    // users is sharded by email; with it each update targets one shard
+    private static Criteria byUser(String userId, String email) {
+        Criteria criteria = Criteria.where("_id").is(userId);
+        return email != null ? criteria.and("email").is(email) : criteria;
+    }
+
+    private void broadcast(List<PresenceTracker.Transition> transitions) {
+        Map<String, Map<String, List<String>>> byRoom = new HashMap<>();
+        for (PresenceTracker.Transition transition : transitions) {
+            for (String gameId : transition.rooms()) {
+                byRoom.computeIfAbsent(gameId, key -> {
+                    Map<String, List<String>> changes = new HashMap<>();
+                    changes.put("online", new ArrayList<>());
+                    changes.put("offline", new ArrayList<>());
+                    return changes;
+                }).get(transition.online() ? "online" : "offline").add(transition.userId());
+            }
+        }
+        Map<String, TextMessage> roomFrames = new HashMap<>();
+        byRoom.forEach((gameId, changes) -> {
+            Map<String, Object> frame = new LinkedHashMap<>();
+            frame.put("type", "presence");
+            frame.put("gameId", gameId);
+            frame.put("online", changes.get("online"));
+            frame.put("offline", changes.get("offline"));
+            roomFrames.put(gameId, chatFanout.toFrame(frame));
+        });
+        if (roomFrames.isEmpty()) {
+            return;
+        }
+        try {
+            directRouter.routeToRooms(roomFrames);
+            frames.add(roomFrames.size());
+        } catch (RuntimeException e) {
+            log.warn("Could not route presence of {} rooms: {}", roomFrames.size(), e.getMessage());
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "presence";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("trackedUsers", tracker.trackedUsers());
+        metrics.put("wentOnline", wentOnline.sum());
+        metrics.put("wentOffline", wentOffline.sum());
+        metrics.put("stillOnlineElsewhere", stillOnlineElsewhere.sum());
+        metrics.put("frames", frames.sum());
+        metrics.put("reconciled", reconciled.sum());
+        return metrics;
+    }
+}
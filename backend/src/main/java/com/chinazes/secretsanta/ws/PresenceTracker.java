@@ -0,0 +1,99 @@
+package com.chinazes.secretsanta.ws;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Online state of users with sockets on this instance.
+ * Socket events only touch memory; drainTransitions reports users whose state differs
+ * from what was last flushed. A user going offline is held for a grace period, so a
+ * quick reconnect produces no transition at all.
+ */
+public class PresenceTracker {
+
+    private final long graceMillis;
+    private final ConcurrentHashMap<String, State> users = new ConcurrentHashMap<>();
+
+    public PresenceTracker(long graceMillis) {
+        this.graceMillis = graceMillis;
+    }
+
+    /**
+     * Count a new socket of the user. The email is the users shard key, carried so
+     * flushes can target one shard without loading the user.
+     */
+    public void connected(String userId, String email) {
+        users.compute(userId, (id, state) -> {
+            State current = state != null ? state : new State();
+            if (email != null) {
+                current.email = email;
+            }
+            current.sockets++;
+            current.offlineSince = -1;
+            return current;
+        });
+    }
+
+    public void disconnected(String userId, long now) {
+        users.computeIfPresent(userId, (id, state) -> {
+            state.sockets = Math.max(0, state.sockets - 1);
+            if (state.sockets == 0) {
+                state.offlineSince = now;
+            }
+            return state;
+        });
+    }
+
+    /**
+     * Remember a room of the user so its members hear about presence changes.
+     */
+    public void joinedRoom(String userId, String gameId) {
+        State state = users.get(userId);
+        if (state != null) {
+            state.rooms.add(gameId);
+        }
+    }
+
+    public List<Transition> drainTransitions(long now) {
+        List<Transition> transitions = new ArrayList<>();
+        for (String userId : users.keySet()) {
+            users.computeIfPresent(userId, (id, state) -> {
+                boolean online = state.sockets > 0;
+                if (online && !state.flushedOnline) {
+                    state.flushedOnline = true;
+                    transitions.add(new Transition(id, state.email, true, Set.copyOf(state.rooms)));
+                } else if (!online && state.flushedOnline && now - state.offlineSince >= graceMillis) {
+                    transitions.add(new Transition(id, state.email, false, Set.copyOf(state.rooms)));
+                    return null;
+                } else if (!online && !state.flushedOnline) {
+                    // Connected and left between two flushes; nobody was told it was online
+                    return null;
+                }
+                return state;
+            });
+        }
+        return transitions;
+    }
+
+    public boolean isTracked(String userId) {
+        return users.containsKey(userId);
+    }
+
+    public int trackedUsers() {
+        return users.size();
+    }
+
+    public record Transition(String userId, String email, boolean online, Set<String> rooms) {
+    }
+
+    // Mutated only inside ConcurrentHashMap.compute for its key
+    private static final class State {
+        private int sockets;
+        private String email;
+        private long offlineSince = -1;
+        private boolean flushedOnline;
+        private final Set<String> rooms = ConcurrentHashMap.newKeySet();
+    }
+}
@@ -0,0 +1,137 @@
+package com.chinazes.secretsanta.ws;
+
+import com.chinazes.secretsanta.common.MetricsSource;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory map of game rooms to the chat sockets connected to this instance.
+ */
+@Component
+public class RoomRegistry implements MetricsSource {
+
+    private final ConcurrentHashMap<String, Set<ChatConnection>> rooms = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final int queueSize;
+
+    private final AtomicInteger connections = new AtomicInteger();
+    // Bumped when a room appears or disappears, so the change stream filter can follow
+    private final AtomicLong roomsVersion = new AtomicLong();
+    private final LongAdder broadcasts = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public RoomRegistry(@Value("${chat.ws.outbound-queue-size:256}") int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public ChatConnection open(WebSocketSession session, String userId) {
+        connections.incrementAndGet();
+        return new ChatConnection(session, userId, queueSize, executor);
+    }
+
+    public void closed(ChatConnection connection) {
+        for (String gameId : connection.getRooms()) {
+            leave(gameId, connection);
+        }
+        connections.decrementAndGet();
+    }
+
+    public void join(String gameId, ChatConnection connection) {
+        // compute keeps this atomic with leave() dropping an emptied room
+        rooms.compute(gameId, (key, members) -> {
+            Set<ChatConnection> room = members;
+            if (room == null) {
+                room = ConcurrentHashMap.newKeySet();
+                roomsVersion.incrementAndGet();
+            }
+            room.add(connection);
+            return room;
+        });
+        connection.getRooms().add(gameId);
+    }
+
+    public void leave(String gameId, ChatConnection connection) {
+        connection.getRooms().remove(gameId);
+        rooms.computeIfPresent(gameId, (key, members) -> {
+            members.remove(connection);
+            if (members.isEmpty()) {
+                roomsVersion.incrementAndGet();
+                return null;
+            }
+            return members;
+        });
+    }
+
+    /**
+     * Queue a frame to every socket in the room. Never blocks on a client.
+     */
+    public void broadcast(String gameId, WebSocketMessage<?> message) {
+        Set<ChatConnection> room = rooms.get(gameId);
+        if (room == null) {
+            return;
+        }
+        broadcasts.increment();
+        int sent = 0;
+        int lost = 0;
+        for (ChatConnection connection : room) {
+            if (connection.send(message)) {
+                sent++;
+            } else {
+                lost++;
+            }
+        }
+        delivered.add(sent);
+        dropped.add(lost);
+    }
+
+    public int roomSize(String gameId) {
+        Set<ChatConnection> room = rooms.get(gameId);
+        return room != null ? room.size() : 0;
+    }
+
+    /**
+     * Games with at least one local socket.
+     */
+    public Set<String> activeRooms() {
+        return Set.copyOf(rooms.keySet());
+    }
+
+    public long roomsVersion() {
+        return roomsVersion.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "chatRooms";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("rooms", rooms.size());
+        metrics.put("connections", connections.get());
+        metrics.put("broadcasts", broadcasts.sum());
+        metrics.put("delivered", delivered.sum());
+        metrics.put("dropped", dropped.sum());
+        return metrics;
+    }
+}
@@ -0,0 +1,97 @@
+package com.chinazes.secretsanta.ws;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local view of which users have sockets on this instance, plus the changes not yet
+ * written to the shared session table. Changes are coalesced per socket, so a socket
+ * that connects and drops between two flushes is never written at all.
+ */
+public class SessionTable {
+
+    private final ConcurrentHashMap<String, Set<ChatConnection>> byUser = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Change> pending = new ConcurrentHashMap<>();
+
+    public void add(ChatConnection connection) {
+        byUser.compute(connection.getUserId(), (userId, connections) -> {
+            Set<ChatConnection> set = connections != null ? connections : ConcurrentHashMap.newKeySet();
+            set.add(connection);
+            return set;
+        });
+        pending.put(connection.getId(), new Change(connection.getUserId(), connection.getId(), true));
+    }
+
+    public void remove(ChatConnection connection) {
+        byUser.computeIfPresent(connection.getUserId(), (userId, connections) -> {
+            connections.remove(connection);
+            return connections.isEmpty() ? null : connections;
+        });
+        // An unflushed connect cancels out; otherwise the stored entry has to go
+        pending.compute(connection.getId(), (sessionId, change) -> change != null && change.connected()
+                ? null
+                : new Change(connection.getUserId(), sessionId, false));
+    }
+
+    public Set<ChatConnection> connectionsOf(String userId) {
+        Set<ChatConnection> connections = byUser.get(userId);
+        return connections != null ? connections : Set.of();
+    }
+
+    /**
+     * Take up to max pending changes for writing.
+     */
+    public List<Change> drainChanges(int max) {
+        List<Change> changes = new ArrayList<>(Math.min(max, pending.size()));
+        Iterator<Map.Entry<String, Change>> it = pending.entrySet().iterator();
+        while (changes.size() < max && it.hasNext()) {
+            Map.Entry<String, Change> entry = it.next();
+            // Only take the change seen here; a newer one stays for the next flush
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                changes.add(entry.getValue());
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Put back changes whose write failed, unless the socket changed again since.
+     */
+    public void requeue(List<Change> changes) {
+        for (Change change : changes) {
+            pending.putIfAbsent(change.sessionId(), change);
+        }
+    }
+
+    /**
+     * Connected sockets whose connect has already been written, for refreshing their entries.
+     * Sockets with a pending change are left to the next flush, so a refresh can never
+     * resurrect an entry whose removal was coalesced away.
+     */
+    public List<Change> writtenConnections() {
+        List<Change> connections = new ArrayList<>();
+        for (Set<ChatConnection> set : byUser.values()) {
+            for (ChatConnection connection : set) {
+                if (!pending.containsKey(connection.getId())) {
+                    connections.add(new Change(connection.getUserId(), connection.getId(), true));
+                }
+            }
+        }
+        return connections;
+    }
+
+    public int users() {
+        return byUser.size();
+    }
+
+    public int pendingChanges() {
+        return pending.size();
+    }
+
+    public record Change(String userId, String sessionId, boolean connected) {
+    }
+}
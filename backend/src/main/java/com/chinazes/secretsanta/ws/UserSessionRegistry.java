@@ -0,0 +1,227 @@
+package com.chinazes.secretsanta.ws;
+
+import com.chinazes.secretsanta.common.MetricsSource;
+import com.chinazes.secretsanta.config.NodeIdentity;
+import com.chinazes.secretsanta.models.UserSession;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Routing table of user sockets across instances (usersessions, sharded by userId).
+ * Connects and disconnects are buffered in a SessionTable and written in unordered
+ * batches, so a mass reconnect costs a few bulk writes instead of one round trip per socket.
+ * Each heartbeat re-upserts the entries of all local sockets, so entries lost to expiry or
+ * a failed write come back. Flush and heartbeat run on a dedicated thread: other scheduled
+ * jobs cannot delay them past the TTL, and a heartbeat never overtakes a pending removal.
+ */
+@Component
+public class UserSessionRegistry implements SmartLifecycle, MetricsSource {
+
+    private static final Logger log = LoggerFactory.getLogger(UserSessionRegistry.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final String nodeId;
+    private final long ttlMillis;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long heartbeatIntervalMillis;
+    private final SessionTable table = new SessionTable();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().daemon().name("user-sessions").factory());
+    private volatile boolean running;
+
+    private final LongAdder upserts = new LongAdder();
+    private final LongAdder removals = new LongAdder();
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder refreshed = new LongAdder();
+
+    public UserSessionRegistry(
+            MongoTemplate mongoTemplate,
+            NodeIdentity nodeIdentity,
+            @Value("${chat.sessions.ttl:60000}") long ttlMillis,
+            @Value("${chat.sessions.batch-size:1000}") int batchSize,
+            @Value("${chat.sessions.flush-interval:200}") long flushIntervalMillis,
+            @Value("${chat.sessions.heartbeat-interval:20000}") long heartbeatIntervalMillis
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.nodeId = nodeIdentity.getId();
+        this.ttlMillis = ttlMillis;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.heartbeatIntervalMillis = heartbeatIntervalMillis;
+    }
+
+    @Override
+    public void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        scheduler.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::heartbeat, heartbeatIntervalMillis, heartbeatIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public void register(ChatConnection connection) {
+        table.add(connection);
+    }
+
+    public void unregister(ChatConnection connection) {
+        table.remove(connection);
+    }
+
+    public Set<ChatConnection> localConnections(String userId) {
+        return table.connectionsOf(userId);
+    }
+
+    /**
+     * Instances other than this one holding a live socket of the user.
+     */
+    public Set<String> remoteNodesOf(String userId) {
+        lookups.increment();
+        Query query = Query.query(Criteria.where("userId").is(userId).and("expiresAt").gt(LocalDateTime.now()));
+        query.fields().include("nodeId");
+        Set<String> nodes = new HashSet<>();
+        for (UserSession session : mongoTemplate.find(query, UserSession.class)) {
+            if (!nodeId.equals(session.getNodeId())) {
+                nodes.add(session.getNodeId());
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * Instances other than this one that had a socket registered recently. Served by the
+     * nodeId index; entries of a dead instance linger until the TTL monitor removes them,
+     * which only costs a few undelivered nodeinbox entries.
+     */
+    public Set<String> remoteNodes() {
+        lookups.increment();
+        Set<String> nodes = new HashSet<>(mongoTemplate.findDistinct(new Query(), "nodeId", UserSession.class, String.class));
+        nodes.remove(nodeId);
+        return nodes;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    void flush() {
+        try {
+            List<SessionTable.Change> changes;
+            while (!(changes = table.drainChanges(batchSize)).isEmpty()) {
+                if (!write(changes)) {
+                    table.requeue(changes);
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            // Never let an exception cancel the periodic task
+            log.warn("Session flush failed: {}", e.getMessage());
+        }
+    }
+
+    void heartbeat() {
+        try {
+            List<SessionTable.Change> connections = table.writtenConnections();
+            for (int from = 0; from < connections.size(); from += batchSize) {
+                List<SessionTable.Change> batch = connections.subList(from, Math.min(from + batchSize, connections.size()));
+                if (write(batch)) {
+                    refreshed.add(batch.size());
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Session heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        try {
+            mongoTemplate.remove(Query.query(Criteria.where("nodeId").is(nodeId)), UserSession.class);
+        } catch (RuntimeException e) {
+            // Entries expire on their own
+            log.warn("Could not remove sessions of {}: {}", nodeId, e.getMessage());
+        }
+    }
+
+    private boolean write(List<SessionTable.Change> changes) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UserSession.class);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plus(Duration.ofMillis(ttlMillis));
+        int connected = 0;
+        for (SessionTable.Change change : changes) {
+            // userId is the shard key, so each operation targets one shard
+            Query query = Query.query(Criteria.where("userId").is(change.userId())
+                    .and("_id").is(UserSession.idFor(nodeId, change.sessionId())));
+            if (change.connected()) {
+                bulk.upsert(query, new Update()
+                        .setOnInsert("nodeId", nodeId)
+                        .setOnInsert("connectedAt", now)
+                        .set("expiresAt", expiresAt));
+                connected++;
+            } else {
+                bulk.remove(query);
+            }
+        }
+        try {
+            bulk.execute();
+            upserts.add(connected);
+            removals.add(changes.size() - connected);
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Could not write {} session changes: {}", changes.size(), e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "userSessions";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("localUsers", table.users());
+        metrics.put("pendingChanges", table.pendingChanges());
+        metrics.put("upserts", upserts.sum());
+        metrics.put("removals", removals.sum());
+        metrics.put("lookups", lookups.sum());
+        metrics.put("refreshed", refreshed.sum());
+        return metrics;
+    }
+}
@@ -0,0 +1,102 @@
+package com.chinazes.secretsanta.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeout;
+
+class AssignmentSolverTest {
+
+    @Test
+    void respectsExclusions() {
+        SplittableRandom random = new SplittableRandom(11);
+        BitSet[] forbidden = randomConstraints(300, 0.6, 10, random);
+        assertValid(AssignmentSolver.solve(forbidden, random), forbidden);
+    }
+
+    @Test
+    void reportsHallViolation() {
+        // Players 0, 1 and 2 may only give to 3 and 4
+        BitSet[] forbidden = new BitSet[5];
+        for (int i = 0; i < 3; i++) {
+            forbidden[i] = new BitSet();
+            forbidden[i].set(0, 3);
+        }
+        assertThrows(InfeasibleAssignmentException.class,
+                () -> AssignmentSolver.solve(forbidden, new SplittableRandom(1)));
+    }
+
+    @Test
+    void reportsReceiverNobodyMayGiveTo() {
+        BitSet[] forbidden = new BitSet[4];
+        for (int i = 1; i < 4; i++) {
+            forbidden[i] = new BitSet();
+            forbidden[i].set(0);
+        }
+        assertThrows(InfeasibleAssignmentException.class,
+                () -> AssignmentSolver.solve(forbidden, new SplittableRandom(1)));
+    }
+
+    /**
+     * Benchmark: 5,000 players in teams of 50, each also excluding half of everyone else.
+     */
+    @Test
+    void denseConstraintsForFiveThousandPlayersSolveUnderOneSecond() {
+        SplittableRandom random = new SplittableRandom(2024);
+        int n = 5_000;
+        for (int warmup = 0; warmup < 3; warmup++) {
+            AssignmentSolver.solve(randomConstraints(n, 0.5, 50, random), random);
+        }
+
+        BitSet[] forbidden = randomConstraints(n, 0.5, 50, random);
+        int[] receivers = assertTimeout(Duration.ofSeconds(1), () -> AssignmentSolver.solve(forbidden, random));
+
+        assertValid(receivers, forbidden);
+    }
+
+    @Test
+    void infeasibleFiveThousandPlayersFailFast() {
+        SplittableRandom random = new SplittableRandom(5);
+        int n = 5_000;
+        BitSet[] forbidden = randomConstraints(n, 0.5, 50, random);
+        // Half of the players may only give to a single team of 50
+        for (int i = 0; i < n / 2; i++) {
+            forbidden[i].set(0, n);
+            forbidden[i].clear(n - 50, n);
+        }
+        assertTimeout(Duration.ofSeconds(1), () ->
+                assertThrows(InfeasibleAssignmentException.class, () -> AssignmentSolver.solve(forbidden, random)));
+    }
+
+    private static BitSet[] randomConstraints(int n, double density, int teamSize, SplittableRandom random) {
+        BitSet[] forbidden = new BitSet[n];
+        for (int i = 0; i < n; i++) {
+            forbidden[i] = new BitSet(n);
+            int teamStart = i / teamSize * teamSize;
+            forbidden[i].set(teamStart, Math.min(n, teamStart + teamSize));
+            for (int j = 0; j < n; j++) {
+                if (random.nextDouble() < density) {
+                    forbidden[i].set(j);
+                }
+            }
+        }
+        return forbidden;
+    }
+
+    private static void assertValid(int[] receivers, BitSet[] forbidden) {
+        boolean[] taken = new boolean[receivers.length];
+        for (int gifter = 0; gifter < receivers.length; gifter++) {
+            int receiver = receivers[gifter];
+            assertNotEquals(gifter, receiver);
+            assertFalse(forbidden[gifter] != null && forbidden[gifter].get(receiver));
+            assertFalse(taken[receiver]);
+            taken[receiver] = true;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.chinazes.secretsanta.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DerangementsTest {
+
+    @Test
+    void uniformProducesValidDerangements() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int n = 2; n < 200; n++) {
+            assertDerangement(Derangements.uniform(n, random));
+        }
+    }
+
+    @Test
+    void uniformCoversAllDerangementsEvenly() {
+        // D(4) = 9, each should appear about 1/9 of the time
+        SplittableRandom random = new SplittableRandom(7);
+        Map<String, Integer> counts = new HashMap<>();
+        int draws = 90_000;
+        for (int i = 0; i < draws; i++) {
+            counts.merge(Arrays.toString(Derangements.uniform(4, random)), 1, Integer::sum);
+        }
+        assertEquals(9, counts.size());
+        for (int count : counts.values()) {
+            assertTrue(Math.abs(count - draws / 9) < 500, "skewed count " + count);
+        }
+    }
+
+    @Test
+    void singleCycleVisitsEveryIndex() {
+        SplittableRandom random = new SplittableRandom(1);
+        int[] perm = Derangements.singleCycle(10_000, random);
+        assertDerangement(perm);
+        int steps = 0;
+        int current = 0;
+        do {
+            current = perm[current];
+            steps++;
+        } while (current != 0);
+        assertEquals(perm.length, steps);
+    }
+
+    @Test
+    void largeGamesAreFast() {
+        long start = System.nanoTime();
+        assertDerangement(Derangements.uniform(100_000, new SplittableRandom(3)));
+        assertTrue(System.nanoTime() - start < 2_000_000_000L);
+    }
+
+    @Test
+    void rejectsFewerThanTwoPlayers() {
+        assertThrows(IllegalArgumentException.class, () -> Derangements.uniform(1, new SplittableRandom()));
+    }
+
+    private static void assertDerangement(int[] perm) {
+        boolean[] seen = new boolean[perm.length];
+        for (int i = 0; i < perm.length; i++) {
+            assertNotEquals(i, perm[i]);
+            assertTrue(!seen[perm[i]], "duplicate receiver " + perm[i]);
+            seen[perm[i]] = true;
+        }
+    }
+}
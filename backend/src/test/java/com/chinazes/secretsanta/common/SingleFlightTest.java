@@ -0,0 +1,70 @@
+package com.chinazes.secretsanta.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SingleFlightTest {
+
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>(1_000, 100);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                results.add(executor.submit(() -> flight.get("game", key -> {
+                    loads.incrementAndGet();
+                    await(release);
+                    return 42;
+                })));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<Integer> result : results) {
+                assertEquals(42, result.get());
+            }
+        }
+        assertEquals(1, loads.get());
+        assertEquals(49L, flight.stats().get("coalesced"));
+    }
+
+    @Test
+    void failuresAreNotReused() {
+        SingleFlight<String, Integer> flight = new SingleFlight<>(1_000, 100);
+        assertThrows(IllegalStateException.class, () -> flight.get("game", key -> {
+            throw new IllegalStateException("boom");
+        }));
+        assertEquals(7, flight.get("game", key -> 7));
+    }
+
+    @Test
+    void invalidateForcesReload() {
+        SingleFlight<String, Integer> flight = new SingleFlight<>(60_000, 100);
+        AtomicInteger loads = new AtomicInteger();
+        flight.get("game", key -> loads.incrementAndGet());
+        flight.get("game", key -> loads.incrementAndGet());
+        flight.invalidate("game");
+        flight.get("game", key -> loads.incrementAndGet());
+        assertEquals(2, loads.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.chinazes.secretsanta.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StripedTokenBucketLimiterTest {
+
+    @Test
+    void burstIsCappedAtCapacityPerKey() {
+        StripedTokenBucketLimiter limiter = new StripedTokenBucketLimiter(3, 1, 100, 4);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire("a@example.com"));
+        }
+        assertFalse(limiter.tryAcquire("a@example.com"));
+        assertTrue(limiter.tryAcquire("b@example.com"));
+        assertEquals(4L, limiter.stats().get("allowed"));
+        assertEquals(1L, limiter.stats().get("rejected"));
+    }
+
+    @Test
+    void tokensRefillOverTime() throws Exception {
+        // One token every 10 ms
+        StripedTokenBucketLimiter limiter = new StripedTokenBucketLimiter(1, 6_000, 100, 4);
+        assertTrue(limiter.tryAcquire("key"));
+        assertFalse(limiter.tryAcquire("key"));
+        Thread.sleep(50);
+        assertTrue(limiter.tryAcquire("key"));
+    }
+
+    @Test
+    void trackedKeysStayBounded() {
+        StripedTokenBucketLimiter limiter = new StripedTokenBucketLimiter(1, 1, 64, 4);
+        for (int i = 0; i < 10_000; i++) {
+            limiter.tryAcquire("key" + i);
+        }
+        assertTrue((int) limiter.stats().get("keys") <= 64);
+        assertTrue((long) limiter.stats().get("evictions") >= 10_000 - 64);
+    }
+
+    @Test
+    void concurrentCallersNeverExceedCapacity() throws Exception {
+        StripedTokenBucketLimiter limiter = new StripedTokenBucketLimiter(100, 1, 1_000, 8);
+        AtomicInteger granted = new AtomicInteger();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                workers.add(executor.submit(() -> {
+                    for (int i = 0; i < 1_000; i++) {
+                        if (limiter.tryAcquire("shared")) {
+                            granted.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        }
+        // Refill of one token a minute cannot add more than one during the test
+        assertTrue(granted.get() >= 100 && granted.get() <= 101, "granted " + granted.get());
+    }
+
+    @Test
+    void retryAfterFollowsRefillRate() {
+        assertEquals(60, new StripedTokenBucketLimiter(5, 1, 10, 1).getRetryAfterSeconds());
+        assertEquals(1, new StripedTokenBucketLimiter(5, 600, 10, 1).getRetryAfterSeconds());
+    }
+}
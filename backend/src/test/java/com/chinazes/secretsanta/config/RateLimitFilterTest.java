@@ -0,0 +1,100 @@
+package com.chinazes.secretsanta.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RateLimitFilterTest {
+
+    private static final String LOGIN = "/api/auth/login";
+
+    @Test
+    void emailBucketAppliesToJsonBodies() throws Exception {
+        RateLimitFilter filter = filter(false, List.of());
+        for (int i = 0; i < 2; i++) {
+            assertEquals(200, send(filter, login("{\"email\":\"A@example.com\"}", "10.0.0.1")).getStatus());
+        }
+        assertEquals(429, send(filter, login("{\"email\":\"a@example.com\"}", "10.0.0.2")).getStatus());
+    }
+
+    @Test
+    void oversizedOrUnreadableBodiesAreRejected() throws Exception {
+        RateLimitFilter filter = filter(false, List.of());
+        String padded = "{\"pad\":\"" + "x".repeat(20_000) + "\",\"email\":\"a@example.com\"}";
+        assertEquals(413, send(filter, login(padded, "10.0.0.1")).getStatus());
+
+        // Chunked: no content length, the body is only found too long while reading
+        HttpServletRequest chunked = new HttpServletRequestWrapper(login(padded, "10.0.0.2")) {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        assertEquals(413, send(filter, chunked).getStatus());
+
+        assertEquals(400, send(filter, login("{\"email\":", "10.0.0.3")).getStatus());
+        assertEquals(400, send(filter, login("{\"password\":\"x\"}", "10.0.0.4")).getStatus());
+    }
+
+    @Test
+    void realIpIsOnlyTrustedFromConfiguredProxies() throws Exception {
+        RateLimitFilter filter = filter(true, List.of("172.16.0.0/12"));
+        // Spoofed from outside: every request counts against the peer address
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletRequest request = login("{\"email\":\"user" + i + "@example.com\"}", "203.0.113.7");
+            request.addHeader("X-Real-IP", "198.51.100." + i);
+            assertEquals(i < 2 ? 200 : 429, send(filter, request).getStatus());
+        }
+        // Through the proxy: the forwarded address is used
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletRequest request = login("{\"email\":\"other" + i + "@example.com\"}", "172.18.0.5");
+            request.addHeader("X-Real-IP", "198.51.100." + i);
+            assertEquals(200, send(filter, request).getStatus());
+        }
+    }
+
+    private static RateLimitFilter filter(boolean trustProxyHeaders, List<String> trustedProxies) {
+        RateLimitProperties.EndpointLimit limit = new RateLimitProperties.EndpointLimit();
+        limit.setPath(LOGIN);
+        limit.setIpCapacity(2);
+        limit.setIpRefillPerMinute(1);
+        limit.setEmailCapacity(2);
+        limit.setEmailRefillPerMinute(1);
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setTrustProxyHeaders(trustProxyHeaders);
+        properties.setTrustedProxies(trustedProxies);
+        properties.getEndpoints().put("login", limit);
+        return new RateLimitFilter(properties);
+    }
+
+    private static MockHttpServletRequest login(String body, String remoteAddr) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", LOGIN);
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        request.setRemoteAddr(remoteAddr);
+        return request;
+    }
+
+    private static MockHttpServletResponse send(RateLimitFilter filter, HttpServletRequest request)
+            throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, response, chain);
+        if (response.getStatus() == 200) {
+            assertNotNull(chain.getRequest());
+        } else {
+            assertNull(chain.getRequest());
+        }
+        return response;
+    }
+}
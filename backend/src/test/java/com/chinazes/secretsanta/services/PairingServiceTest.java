@@ -0,0 +1,53 @@
+package com.chinazes.secretsanta.services;
+
+import com.chinazes.secretsanta.common.InfeasibleAssignmentException;
+import com.chinazes.secretsanta.models.Pair;
+import com.chinazes.secretsanta.models.Player;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PairingServiceTest {
+
+    private final PairingService pairingService = new PairingService(null, null, 1);
+
+    @Test
+    void repeatTwoPlayerGroupFallsBackToLastYearsPairs() {
+        List<Player> players = List.of(new Player("game", "a"), new Player("game", "b"));
+        List<Pair> history = List.of(new Pair("last", "a", "b"), new Pair("last", "b", "a"));
+
+        List<Pair> pairs = pairingService.generatePairs("game", players, history);
+
+        assertEquals(2, pairs.size());
+        for (Pair pair : pairs) {
+            assertEquals(pair.getGifterId().equals("a") ? "b" : "a", pair.getReceiverId());
+        }
+    }
+
+    @Test
+    void historyIsAvoidedWhenPossible() {
+        List<Player> players = List.of(new Player("game", "a"), new Player("game", "b"), new Player("game", "c"));
+        List<Pair> history = List.of(new Pair("last", "a", "b"));
+
+        for (int i = 0; i < 50; i++) {
+            for (Pair pair : pairingService.generatePairs("game", players, history)) {
+                if (pair.getGifterId().equals("a")) {
+                    assertEquals("c", pair.getReceiverId());
+                }
+            }
+        }
+    }
+
+    @Test
+    void exclusionsStayHard() {
+        Player a = new Player("game", "a");
+        a.setExcludedUserIds(List.of("b"));
+        List<Player> players = List.of(a, new Player("game", "b"));
+
+        assertThrows(InfeasibleAssignmentException.class,
+                () -> pairingService.generatePairs("game", players, List.of(new Pair("last", "a", "b"))));
+    }
+}
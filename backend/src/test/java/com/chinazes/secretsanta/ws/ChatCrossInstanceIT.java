@@ -0,0 +1,172 @@
+package com.chinazes.secretsanta.ws;
+
+import com.chinazes.secretsanta.SecretsantaApplication;
+import com.chinazes.secretsanta.models.Game;
+import com.chinazes.secretsanta.models.Player;
+import com.chinazes.secretsanta.models.User;
+import com.chinazes.secretsanta.services.JwtService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Two application instances on one Mongo replica set: a message sent to a socket on
+ * the first must reach a socket on the second through the messages change stream.
+ * Needs a replica set or sharded cluster, e.g. MONGO_IT_URI=mongodb://localhost:27017/secret_santa_it?replicaSet=rs0
+ */
+@EnabledIfEnvironmentVariable(named = "MONGO_IT_URI", matches = ".+")
+class ChatCrossInstanceIT {
+
+    private static final int MESSAGES = 200;
+
+    private static ConfigurableApplicationContext first;
+    private static ConfigurableApplicationContext second;
+    private static final String run = UUID.randomUUID().toString().substring(0, 8);
+    private static String gameId;
+
+    @BeforeAll
+    static void startInstances() {
+        first = start("it-a");
+        second = start("it-b");
+    }
+
+    @AfterAll
+    static void stopInstances() {
+        if (first != null) {
+            MongoTemplate mongo = first.getBean(MongoTemplate.class);
+            mongo.remove(Query.query(Criteria.where("gameId").is(gameId)), "messages");
+            mongo.remove(Query.query(Criteria.where("gameId").is(gameId)), Player.class);
+            mongo.remove(Query.query(Criteria.where("_id").is(gameId)), Game.class);
+            mongo.remove(Query.query(Criteria.where("email").regex("^it-" + run)), User.class);
+            first.close();
+        }
+        if (second != null) {
+            second.close();
+        }
+    }
+
+    @Test
+    void messagesReachSocketsOnTheOtherInstance() throws Exception {
+        MongoTemplate mongo = first.getBean(MongoTemplate.class);
+        User sender = mongo.save(user("sender"));
+        User reader = mongo.save(user("reader"));
+        Game game = mongo.save(new Game("IT chat " + run, sender.getId()));
+        gameId = game.getId();
+        mongo.save(new Player(gameId, sender.getId()));
+        mongo.save(new Player(gameId, reader.getId()));
+
+        Map<String, Long> arrivals = new ConcurrentHashMap<>();
+        BlockingQueue<String> senderFrames = new LinkedBlockingQueue<>();
+        BlockingQueue<String> readerFrames = new LinkedBlockingQueue<>();
+        WebSocketSession senderSocket = connect(first, sender, senderFrames, null);
+        WebSocketSession readerSocket = connect(second, reader, readerFrames, arrivals);
+
+        join(senderSocket, senderFrames);
+        join(readerSocket, readerFrames);
+        // Let the second instance reopen its stream with the new room in the filter
+        Thread.sleep(1_000);
+
+        Map<String, Long> sentAt = new ConcurrentHashMap<>();
+        for (int i = 0; i < MESSAGES; i++) {
+            String payload = "probe-" + run + "-" + i;
+            sentAt.put(payload, System.nanoTime());
+            senderSocket.sendMessage(new TextMessage(
+                    "{\"type\":\"send\",\"gameId\":\"" + gameId + "\",\"messageEncrypted\":\"" + payload + "\"}"));
+            Thread.sleep(5);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (arrivals.size() < MESSAGES && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(arrivals.size() == MESSAGES, "only " + arrivals.size() + " of " + MESSAGES + " messages arrived");
+
+        List<Long> latencies = new ArrayList<>();
+        sentAt.forEach((payload, sent) -> latencies.add((arrivals.get(payload) - sent) / 1_000));
+        Collections.sort(latencies);
+        System.out.printf("Cross-instance chat latency over %d messages: p50 %d us, p99 %d us, max %d us%n",
+                MESSAGES, latencies.get(MESSAGES / 2), latencies.get(MESSAGES * 99 / 100), latencies.get(MESSAGES - 1));
+
+        senderSocket.close();
+        readerSocket.close();
+    }
+
+    private static ConfigurableApplicationContext start(String instance) {
+        String secret = Base64.getEncoder().encodeToString(("chat-it-secret-key-" + run + "-0123456789abcdef").getBytes());
+        return new SpringApplicationBuilder(SecretsantaApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.data.mongodb.uri=" + System.getenv("MONGO_IT_URI"),
+                        "security.jwt.secret-key=" + secret,
+                        "spring.security.oauth2.client.registration.google.client-id=it",
+                        "spring.security.oauth2.client.registration.google.client-secret=it",
+                        "spring.security.oauth2.client.registration.github.client-id=it",
+                        "spring.security.oauth2.client.registration.github.client-secret=it",
+                        "spring.mail.username=it",
+                        "spring.mail.password=it",
+                        "games.lifecycle.enabled=false",
+                        "chat.ws.bridge.checkpoint-id=" + instance + "-" + run
+                )
+                .run();
+    }
+
+    private static User user(String name) {
+        User user = new User("it-" + run + "-" + name, "it-" + run + "-" + name + "@example.com", "");
+        user.setEnabled(true);
+        return user;
+    }
+
+    private static WebSocketSession connect(ConfigurableApplicationContext context, User user,
+                                            BlockingQueue<String> frames, Map<String, Long> arrivals) throws Exception {
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        String token = context.getBean(JwtService.class).generateToken(user);
+        WebSocketHttpHeaders headers = new WebSocketHttpHeaders();
+        headers.setSecWebSocketProtocol(List.of(ChatWebSocketHandler.TOKEN_PROTOCOL, token));
+        return new StandardWebSocketClient().execute(new TextWebSocketHandler() {
+            @Override
+            protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+                long now = System.nanoTime();
+                String payload = message.getPayload();
+                if (arrivals != null && payload.contains("\"type\":\"message\"")) {
+                    int start = payload.indexOf("probe-");
+                    arrivals.putIfAbsent(payload.substring(start, payload.indexOf('"', start)), now);
+                }
+                frames.add(payload);
+            }
+        }, headers, URI.create("ws://localhost:" + port + "/api/ws/chat")).get(10, TimeUnit.SECONDS);
+    }
+
+    private static void join(WebSocketSession socket, BlockingQueue<String> frames) throws Exception {
+        socket.sendMessage(new TextMessage("{\"type\":\"join\",\"gameId\":\"" + gameId + "\"}"));
+        String reply = frames.poll(10, TimeUnit.SECONDS);
+        assertNotNull(reply);
+        assertTrue(reply.contains("\"joined\""), reply);
+    }
+}
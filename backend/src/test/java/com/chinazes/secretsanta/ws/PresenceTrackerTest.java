@@ -0,0 +1,95 @@
+package com.chinazes.secretsanta.ws;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PresenceTrackerTest {
+
+    private static final long GRACE = 10_000;
+    private static final int USERS = 10_000;
+
+    /**
+     * Benchmark: 10,000 online users all drop and reconnect within the grace period,
+     * as when an instance behind the load balancer restarts.
+     * Tagged benchmark, run with mvn test -Pbenchmark.
+     */
+    @Test
+    @Tag("benchmark")
+    void reconnectStormProducesNoTransitions() {
+        PresenceTracker tracker = new PresenceTracker(GRACE);
+        for (int i = 0; i < USERS; i++) {
+            tracker.connected("user" + i, "user" + i + "@example.com");
+            tracker.joinedRoom("user" + i, "game" + (i % 100));
+        }
+        assertEquals(USERS, tracker.drainTransitions(0).size());
+
+        for (int i = 0; i < USERS; i++) {
+            tracker.disconnected("user" + i, 1_000);
+        }
+        List<PresenceTracker.Transition> during = tracker.drainTransitions(2_000);
+        for (int i = 0; i < USERS; i++) {
+            tracker.connected("user" + i, "user" + i + "@example.com");
+        }
+        List<PresenceTracker.Transition> after = tracker.drainTransitions(GRACE * 2);
+        assertTrue(during.isEmpty());
+        assertTrue(after.isEmpty());
+        assertEquals(USERS, tracker.trackedUsers());
+    }
+
+    @Test
+    void reconnectWithinGracePeriodIsNeverWritten() {
+        PresenceTracker tracker = new PresenceTracker(GRACE);
+        tracker.connected("user", "user@example.com");
+        tracker.drainTransitions(0);
+
+        tracker.disconnected("user", 1_000);
+        assertTrue(tracker.drainTransitions(2_000).isEmpty());
+        tracker.connected("user", "user@example.com");
+        assertTrue(tracker.drainTransitions(GRACE * 2).isEmpty());
+        assertEquals(1, tracker.trackedUsers());
+    }
+
+    @Test
+    void offlineIsReportedOnceAfterGracePeriod() {
+        PresenceTracker tracker = new PresenceTracker(GRACE);
+        tracker.connected("user", "user@example.com");
+        tracker.joinedRoom("user", "game");
+        assertEquals(List.of(new PresenceTracker.Transition("user", "user@example.com", true, Set.of("game"))),
+                tracker.drainTransitions(0));
+
+        tracker.disconnected("user", 1_000);
+        assertTrue(tracker.drainTransitions(1_000 + GRACE - 1).isEmpty());
+        assertEquals(List.of(new PresenceTracker.Transition("user", "user@example.com", false, Set.of("game"))),
+                tracker.drainTransitions(1_000 + GRACE));
+        assertTrue(tracker.drainTransitions(1_000 + GRACE * 2).isEmpty());
+        assertEquals(0, tracker.trackedUsers());
+    }
+
+    @Test
+    void userStaysOnlineWhileAnySocketIsOpen() {
+        PresenceTracker tracker = new PresenceTracker(GRACE);
+        tracker.connected("user", "user@example.com");
+        tracker.connected("user", "user@example.com");
+        tracker.drainTransitions(0);
+
+        tracker.disconnected("user", 0);
+        assertTrue(tracker.drainTransitions(GRACE * 2).isEmpty());
+        assertEquals(1, tracker.trackedUsers());
+    }
+
+    @Test
+    void socketClosedBeforeFlushIsNeverWritten() {
+        PresenceTracker tracker = new PresenceTracker(GRACE);
+        tracker.connected("user", "user@example.com");
+        tracker.disconnected("user", 0);
+        assertTrue(tracker.drainTransitions(0).isEmpty());
+        assertEquals(0, tracker.trackedUsers());
+        assertTrue(tracker.drainTransitions(GRACE).isEmpty());
+    }
+}
@@ -0,0 +1,108 @@
+package com.chinazes.secretsanta.ws;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoomRegistryTest {
+
+    private final RoomRegistry registry = new RoomRegistry(256);
+
+    @AfterEach
+    void shutdown() {
+        registry.shutdown();
+    }
+
+    /**
+     * Benchmark: 10,000 sockets spread over 100 rooms, 100 messages per room.
+     * Exercises the registry and per-connection queues without a network stack.
+     * Tagged benchmark, run with mvn test -Pbenchmark.
+     */
+    @Test
+    @Tag("benchmark")
+    void fansOutToTenThousandSockets() throws Exception {
+        int rooms = 100;
+        int perRoom = 100;
+        int messages = 100;
+        CountDownLatch done = new CountDownLatch(rooms * perRoom * messages);
+        AtomicInteger received = new AtomicInteger();
+
+        for (int r = 0; r < rooms; r++) {
+            for (int c = 0; c < perRoom; c++) {
+                FakeWebSocketSession session = new FakeWebSocketSession("s" + r + "-" + c, message -> {
+                    received.incrementAndGet();
+                    done.countDown();
+                });
+                registry.join("game" + r, registry.open(session, "user" + c));
+            }
+        }
+
+        for (int m = 0; m < messages; m++) {
+            TextMessage frame = new TextMessage("{\"type\":\"message\",\"n\":" + m + "}");
+            for (int r = 0; r < rooms; r++) {
+                registry.broadcast("game" + r, frame);
+            }
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS), "only " + received.get() + " frames delivered");
+        assertEquals(0L, registry.getMetrics().get("dropped"));
+    }
+
+    @Test
+    void slowSocketIsDroppedWithoutBlockingTheRoom() throws Exception {
+        CountDownLatch stuck = new CountDownLatch(1);
+        FakeWebSocketSession slow = new FakeWebSocketSession("slow", message -> await(stuck));
+        ChatConnection slowConnection = registry.open(slow, "slow");
+        registry.join("game", slowConnection);
+
+        AtomicInteger fastReceived = new AtomicInteger();
+        registry.join("game", registry.open(new FakeWebSocketSession("fast", message -> fastReceived.incrementAndGet()), "fast"));
+
+        // Bursts the fast socket keeps up with; the slow one falls a full queue behind
+        int sent = 0;
+        for (int burst = 0; burst < 10; burst++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < 32; i++) {
+                registry.broadcast("game", new TextMessage("frame " + sent++));
+            }
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1), "broadcast blocked on the slow socket");
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (fastReceived.get() < sent && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+        }
+        assertEquals(sent, fastReceived.get());
+        assertTrue(slow.closed.await(5, TimeUnit.SECONDS));
+        assertEquals(CloseStatus.SESSION_NOT_RELIABLE, slow.closeStatus);
+
+        stuck.countDown();
+        registry.closed(slowConnection);
+        assertEquals(1, registry.roomSize("game"));
+    }
+
+    @Test
+    void emptyRoomsAreRemoved() {
+        ChatConnection connection = registry.open(new FakeWebSocketSession("s", message -> {}), "user");
+        registry.join("a", connection);
+        registry.join("b", connection);
+        registry.closed(connection);
+        assertEquals(0, registry.getMetrics().get("rooms"));
+        assertEquals(0, registry.getMetrics().get("connections"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.chinazes.secretsanta.ws;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionTableTest {
+
+    private static final int USERS = 10_000;
+
+    /**
+     * Benchmark: every one of 10,000 users reconnects at once while a flusher drains
+     * changes concurrently, as after a rolling restart of the other instance.
+     * Tagged benchmark, run with mvn test -Pbenchmark.
+     */
+    @Test
+    @Tag("benchmark")
+    void massReconnectCostsOneDeleteAndOneUpsertPerUser() throws Exception {
+        SessionTable table = new SessionTable();
+        ChatConnection[] current = new ChatConnection[USERS];
+        for (int i = 0; i < USERS; i++) {
+            current[i] = connection("old-" + i, "user" + i);
+            table.add(current[i]);
+        }
+        assertEquals(USERS, table.drainChanges(Integer.MAX_VALUE).size());
+
+        AtomicInteger upserts = new AtomicInteger();
+        AtomicInteger deletes = new AtomicInteger();
+        AtomicBoolean reconnecting = new AtomicBoolean(true);
+        int threads = 8;
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads + 1)) {
+            Future<?> flusher = executor.submit(() -> {
+                while (reconnecting.get() || table.pendingChanges() > 0) {
+                    count(table.drainChanges(1_000), upserts, deletes);
+                }
+            });
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t;
+                workers.add(executor.submit(() -> {
+                    for (int i = offset; i < USERS; i += threads) {
+                        table.remove(current[i]);
+                        table.add(connection("new-" + i, "user" + i));
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            reconnecting.set(false);
+            flusher.get();
+        }
+        assertEquals(USERS, upserts.get());
+        assertEquals(USERS, deletes.get());
+        assertEquals(USERS, table.users());
+        for (int i = 0; i < USERS; i += 997) {
+            assertEquals(1, table.connectionsOf("user" + i).size());
+            assertEquals("new-" + i, table.connectionsOf("user" + i).iterator().next().getId());
+        }
+    }
+
+    @Test
+    void flappingSocketIsNeverWritten() {
+        SessionTable table = new SessionTable();
+        ChatConnection connection = connection("s1", "user");
+        table.add(connection);
+        table.remove(connection);
+        assertTrue(table.drainChanges(100).isEmpty());
+        assertEquals(0, table.users());
+    }
+
+    @Test
+    void failedWritesAreRetriedUnlessSuperseded() {
+        SessionTable table = new SessionTable();
+        ChatConnection first = connection("s1", "user");
+        ChatConnection second = connection("s2", "user");
+        table.add(first);
+        table.add(second);
+        List<SessionTable.Change> failed = table.drainChanges(100);
+
+        table.remove(second);
+        table.requeue(failed);
+
+        List<SessionTable.Change> retried = table.drainChanges(100);
+        assertEquals(2, retried.size());
+        assertTrue(retried.contains(new SessionTable.Change("user", "s1", true)));
+        assertTrue(retried.contains(new SessionTable.Change("user", "s2", false)));
+    }
+
+    @Test
+    void heartbeatOnlyRefreshesWrittenSockets() {
+        SessionTable table = new SessionTable();
+        ChatConnection written = connection("s1", "user");
+        table.add(written);
+        table.drainChanges(100);
+        table.add(connection("s2", "user"));
+
+        assertEquals(List.of(new SessionTable.Change("user", "s1", true)), table.writtenConnections());
+
+        table.remove(written);
+        assertTrue(table.writtenConnections().isEmpty());
+    }
+
+    private static void count(List<SessionTable.Change> changes, AtomicInteger upserts, AtomicInteger deletes) {
+        for (SessionTable.Change change : changes) {
+            (change.connected() ? upserts : deletes).incrementAndGet();
+        }
+    }
+
+    private static ChatConnection connection(String sessionId, String userId) {
+        return new ChatConnection(new FakeWebSocketSession(sessionId, message -> {}), userId, 16, Runnable::run);
+    }
+}
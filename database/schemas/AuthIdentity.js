@@ -0,0 +1,13 @@
+// MongoDB JSON Schema for mongosh
+var authIdentitySchema = {
+  bsonType: "object",
+  required: ["provider", "providerId", "userId"],
+  properties: {
+    _id: { bsonType: "string" },
+    provider: { bsonType: "string" },
+    providerId: { bsonType: "string" },
+    userId: { bsonType: "string" },
+    email: { bsonType: "string" },
+    createdAt: { bsonType: "date" }
+  }
+};
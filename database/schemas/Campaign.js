@@ -0,0 +1,20 @@
+// MongoDB JSON Schema for mongosh
+var campaignSchema = {
+  bsonType: "object",
+  required: ["subject", "template", "status"],
+  properties: {
+    _id: { bsonType: "objectId" },
+    name: { bsonType: "string" },
+    subject: { bsonType: "string" },
+    template: { bsonType: "string" },
+    parameters: { bsonType: "object" },
+    status: { enum: ["DRAFT", "RUNNING", "PAUSED", "COMPLETED"] },
+    lastUserId: { bsonType: "string" },
+    sentCount: { bsonType: ["int", "long"] },
+    failedCount: { bsonType: ["int", "long"] },
+    leaseOwner: { bsonType: "string" },
+    leaseUntil: { bsonType: "date" },
+    createdAt: { bsonType: "date" },
+    completedAt: { bsonType: "date" }
+  }
+};
@@ -0,0 +1,20 @@
+// MongoDB JSON Schema for mongosh
+var emailOutboxSchema = {
+  bsonType: "object",
+  required: ["to", "subject", "html", "status"],
+  properties: {
+    // Deterministic string ids let callers queue a mail at most once
+    _id: { bsonType: ["objectId", "string"] },
+    to: { bsonType: "string" },
+    subject: { bsonType: "string" },
+    html: { bsonType: "string" },
+    status: { enum: ["PENDING", "SENDING", "SENT", "FAILED"] },
+    attempts: { bsonType: "int" },
+    nextAttemptAt: { bsonType: "date" },
+    lockedUntil: { bsonType: "date" },
+    lockedBy: { bsonType: "string" },
+    lastError: { bsonType: "string" },
+    createdAt: { bsonType: "date" },
+    sentAt: { bsonType: "date" }
+  }
+};
@@ -14,6 +14,11 @@ var gameSchema = {
     startAt: { bsonType: "date" },
     endsAt: { bsonType: "date" },
     createdAt: { bsonType: "date" },
+    participantCount: { bsonType: "int" },
+    version: { bsonType: ["int", "long"] },
+    leaseOwner: { bsonType: "string" },
+    leaseUntil: { bsonType: "date" },
+    revealPending: { bsonType: "bool" },
     settings: {
       bsonType: "object",
       properties: {
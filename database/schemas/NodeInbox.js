@@ -0,0 +1,14 @@
+// MongoDB JSON Schema for mongosh
+var nodeInboxSchema = {
+  bsonType: "object",
+  // Addressed to either a user's sockets (userId) or a room's sockets (gameId)
+  required: ["nodeId", "payload"],
+  properties: {
+    _id: { bsonType: "objectId" },
+    nodeId: { bsonType: "string" },
+    userId: { bsonType: "string" },
+    gameId: { bsonType: "string" },
+    payload: { bsonType: "string" },
+    createdAt: { bsonType: "date" }
+  }
+};
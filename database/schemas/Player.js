@@ -3,10 +3,12 @@ var playerSchema = {
   bsonType: "object",
   required: ["gameId", "userId"],
   properties: {
-    _id: { bsonType: "objectId" },
+    _id: { bsonType: ["objectId", "string"] },
     gameId: { bsonType: "objectId" },
     userId: { bsonType: "objectId" },
     joinedAt: { bsonType: "date" },
-    isGifted: { bsonType: "bool" }
+    isGifted: { bsonType: "bool" },
+    excludedUserIds: { bsonType: "array", items: { bsonType: ["objectId", "string"] } },
+    team: { bsonType: "string" }
   }
 };
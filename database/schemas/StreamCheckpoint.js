@@ -0,0 +1,10 @@
+// MongoDB JSON Schema for mongosh
+var streamCheckpointSchema = {
+  bsonType: "object",
+  required: ["resumeToken"],
+  properties: {
+    _id: { bsonType: "string" },
+    resumeToken: { bsonType: "string" },
+    updatedAt: { bsonType: "date" }
+  }
+};
@@ -12,6 +12,8 @@ var userSchema = {
     role: { enum: ["admin", "regular"] },
     enabled: { bsonType: "bool" },
     isOnline: { bsonType: "bool" },
+    presenceAt: { bsonType: "date" },
+    securityEpoch: { bsonType: ["int", "long"] },
     
     // JWT authentication fields
     verificationCode: { bsonType: "string" },
@@ -0,0 +1,13 @@
+// MongoDB JSON Schema for mongosh
+var userAssignmentSchema = {
+  bsonType: "object",
+  required: ["userId", "gameId", "receiverId"],
+  properties: {
+    _id: { bsonType: "string" },
+    userId: { bsonType: "string" },
+    gameId: { bsonType: "string" },
+    gameName: { bsonType: "string" },
+    receiverId: { bsonType: "string" },
+    createdAt: { bsonType: "date" }
+  }
+};
@@ -0,0 +1,13 @@
+// MongoDB JSON Schema for mongosh
+var userGameSchema = {
+  bsonType: "object",
+  required: ["userId", "gameId"],
+  properties: {
+    _id: { bsonType: "string" },
+    userId: { bsonType: "string" },
+    gameId: { bsonType: "string" },
+    gameName: { bsonType: "string" },
+    status: { enum: ["DRAFT", "ACTIVE", "ENDED"] },
+    joinedAt: { bsonType: "date" }
+  }
+};
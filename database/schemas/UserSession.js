@@ -0,0 +1,12 @@
+// MongoDB JSON Schema for mongosh
+var userSessionSchema = {
+  bsonType: "object",
+  required: ["userId", "nodeId", "expiresAt"],
+  properties: {
+    _id: { bsonType: "string" },
+    userId: { bsonType: "string" },
+    nodeId: { bsonType: "string" },
+    connectedAt: { bsonType: "date" },
+    expiresAt: { bsonType: "date" }
+  }
+};
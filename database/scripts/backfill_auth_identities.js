@@ -0,0 +1,55 @@
+// One-off migration: index every OAuth identity in users.authProviders into authidentities.
+// Run against the router after deploying the authidentities collection, e.g.
+//   mongosh "$MONGODB_URI" --file /scripts/backfill_auth_identities.js
+// Safe to re-run: identities are upserted by their deterministic _id "provider:providerId".
+// Once it has completed, the backend no longer needs auth.identities.legacy-fallback.
+
+const dbName = 'secret_santa';
+const db = db.getSiblingDB(dbName);
+const batchSize = 1000;
+
+print(`🔁 Backfilling authidentities from users.authProviders in ${dbName}`);
+
+let ops = [];
+let users = 0;
+let identities = 0;
+
+function flush() {
+  if (ops.length === 0) {
+    return;
+  }
+  db.authidentities.bulkWrite(ops, { ordered: false });
+  identities += ops.length;
+  ops = [];
+}
+
+const cursor = db.users.find(
+  { 'authProviders.0': { $exists: true } },
+  { _id: 1, email: 1, authProviders: 1 }
+).batchSize(batchSize);
+
+cursor.forEach(user => {
+  users++;
+  const userId = typeof user._id.toHexString === 'function' ? user._id.toHexString() : String(user._id);
+  user.authProviders.forEach(link => {
+    if (!link.provider || !link.providerId) {
+      return;
+    }
+    ops.push({
+      updateOne: {
+        filter: { _id: `${link.provider}:${link.providerId}` },
+        update: {
+          $setOnInsert: { provider: link.provider, providerId: link.providerId, createdAt: new Date() },
+          $set: { userId: userId, email: user.email }
+        },
+        upsert: true
+      }
+    });
+    if (ops.length >= batchSize) {
+      flush();
+    }
+  });
+});
+flush();
+
+print(`✅ Indexed ${identities} identities of ${users} users`);
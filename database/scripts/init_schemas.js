@@ -22,6 +22,12 @@ function createCollectionWithSchema(collectionName, schema, shardKey, descriptio
     }
   });
 
+  if (!shardKey) {
+    // Small work queues stay on the primary shard so findAndModify can claim without a shard key
+    print(`📌 Collection ${collectionName} is left unsharded`);
+    return;
+  }
+
   print(`🔑 Creating index and sharding for: ${collectionName}`);
   db.getCollection(collectionName).createIndex(shardKey);
   
@@ -62,7 +68,9 @@ const collectionConfigs = {
       }
     },
     indexes: [
-      { isActive: 1, isOnline: 1 }
+      { isActive: 1, isOnline: 1 },
+      // Presence reconcile looks up users still flagged online
+      { isOnline: 1, _id: 1 }
     ],
     uniqueIndexes: [
       { login: 1 },
@@ -70,6 +78,19 @@ const collectionConfigs = {
     ]
   },
   
+  authidentities: {
+    schemaFile: '/schemas/AuthIdentity.js',
+    schemaVar: 'authIdentitySchema',
+    shardKey: { _id: "hashed" },
+    description: "Maps OAuth provider identities to users for single-shard logins",
+    options: {
+      presplit: { numInitialChunks: 4 }
+    },
+    indexes: [
+      { userId: 1 }
+    ]
+  },
+
   games: {
     schemaFile: '/schemas/Game.js',
     schemaVar: 'gameSchema',
@@ -81,7 +102,9 @@ const collectionConfigs = {
     indexes: [
       { creatorId: 1, status: 1 },
       { status: 1, createdAt: -1 },
-      { status: 1, startAt: 1 }
+      { status: 1, startAt: 1, _id: 1 },
+      { status: 1, endsAt: 1, _id: 1 },
+      { status: 1, revealPending: 1, _id: 1 }
     ]
   },
   
@@ -136,7 +159,7 @@ const collectionConfigs = {
       presplit: { numInitialChunks: 6 }
     },
     indexes: [
-      { gameId: 1, createdAt: -1 },
+      { gameId: 1, createdAt: -1, _id: -1 },
       { userId: 1, createdAt: -1 }
     ]
   },
@@ -201,6 +224,93 @@ const collectionConfigs = {
       { actorId: 1, timestamp: -1 },
       { "payload.action": 1, timestamp: -1 }
     ]
+  },
+
+  userassignments: {
+    schemaFile: '/schemas/UserAssignment.js',
+    schemaVar: 'userAssignmentSchema',
+    shardKey: { userId: "hashed" },
+    description: "Per-user copy of pairs so a gifter's assignments live on one shard",
+    options: {
+      presplit: { numInitialChunks: 4 }
+    },
+    indexes: [
+      { userId: 1, createdAt: -1 },
+      { gameId: 1 }
+    ]
+  },
+
+  usergames: {
+    schemaFile: '/schemas/UserGame.js',
+    schemaVar: 'userGameSchema',
+    shardKey: { userId: "hashed" },
+    description: "Per-user copy of players for the my games list",
+    options: {
+      presplit: { numInitialChunks: 4 }
+    },
+    indexes: [
+      { userId: 1, joinedAt: -1 },
+      { gameId: 1 }
+    ]
+  },
+
+  emailoutbox: {
+    schemaFile: '/schemas/EmailOutbox.js',
+    schemaVar: 'emailOutboxSchema',
+    shardKey: null,
+    description: "Stores outgoing emails until the dispatcher delivers them",
+    indexes: [
+      { status: 1, nextAttemptAt: 1 },
+      { status: 1, lockedUntil: 1 }
+    ]
+  },
+
+  usersessions: {
+    schemaFile: '/schemas/UserSession.js',
+    schemaVar: 'userSessionSchema',
+    shardKey: { userId: "hashed" },
+    description: "Routes user-addressed frames to the instances holding the user's sockets",
+    options: {
+      presplit: { numInitialChunks: 4 }
+    },
+    indexes: [
+      { userId: 1, expiresAt: 1 },
+      { nodeId: 1 }
+    ],
+    ttlIndexes: [
+      { key: { expiresAt: 1 }, expireAfterSeconds: 0 }
+    ]
+  },
+
+  nodeinbox: {
+    schemaFile: '/schemas/NodeInbox.js',
+    schemaVar: 'nodeInboxSchema',
+    shardKey: null,
+    description: "Short-lived frames addressed to one backend instance",
+    ttlIndexes: [
+      { key: { createdAt: 1 }, expireAfterSeconds: 60 }
+    ]
+  },
+
+  streamcheckpoints: {
+    schemaFile: '/schemas/StreamCheckpoint.js',
+    schemaVar: 'streamCheckpointSchema',
+    shardKey: null,
+    description: "Stores change stream resume tokens per backend instance",
+    // Checkpoints of pods that are gone expire; live ones are rewritten every few seconds
+    ttlIndexes: [
+      { key: { updatedAt: 1 }, expireAfterSeconds: 86400 }
+    ]
+  },
+
+  campaigns: {
+    schemaFile: '/schemas/Campaign.js',
+    schemaVar: 'campaignSchema',
+    shardKey: null,
+    description: "Stores mailing campaigns and their progress",
+    indexes: [
+      { status: 1 }
+    ]
   }
 };
 
@@ -229,6 +339,14 @@ Object.entries(collectionConfigs).forEach(([collectionName, config]) => {
     else if (config.schemaVar === 'notificationSchema' && typeof notificationSchema !== 'undefined') schema = notificationSchema;
     else if (config.schemaVar === 'ticketSchema' && typeof ticketSchema !== 'undefined') schema = ticketSchema;
     else if (config.schemaVar === 'logSchema' && typeof logSchema !== 'undefined') schema = logSchema;
+    else if (config.schemaVar === 'emailOutboxSchema' && typeof emailOutboxSchema !== 'undefined') schema = emailOutboxSchema;
+    else if (config.schemaVar === 'campaignSchema' && typeof campaignSchema !== 'undefined') schema = campaignSchema;
+    else if (config.schemaVar === 'userAssignmentSchema' && typeof userAssignmentSchema !== 'undefined') schema = userAssignmentSchema;
+    else if (config.schemaVar === 'userGameSchema' && typeof userGameSchema !== 'undefined') schema = userGameSchema;
+    else if (config.schemaVar === 'authIdentitySchema' && typeof authIdentitySchema !== 'undefined') schema = authIdentitySchema;
+    else if (config.schemaVar === 'streamCheckpointSchema' && typeof streamCheckpointSchema !== 'undefined') schema = streamCheckpointSchema;
+    else if (config.schemaVar === 'userSessionSchema' && typeof userSessionSchema !== 'undefined') schema = userSessionSchema;
+    else if (config.schemaVar === 'nodeInboxSchema' && typeof nodeInboxSchema !== 'undefined') schema = nodeInboxSchema;
     
     if (schema) {
       print(`✅ Successfully loaded schema for ${collectionName} from ${config.schemaFile}`);
@@ -266,6 +384,19 @@ Object.entries(collectionConfigs).forEach(([collectionName, config]) => {
     });
   }
   
+  // Create TTL indexes
+  if (config.ttlIndexes && config.ttlIndexes.length > 0) {
+    print(`⏳ Creating ${config.ttlIndexes.length} TTL indexes for ${collectionName}...`);
+    config.ttlIndexes.forEach(ttl => {
+      try {
+        db.getCollection(collectionName).createIndex(ttl.key, { expireAfterSeconds: ttl.expireAfterSeconds });
+        print(`  ✅ TTL index ${JSON.stringify(ttl.key)} created (${ttl.expireAfterSeconds}s)`);
+      } catch (e) {
+        print(`  ⚠️ TTL index creation failed: ${e}`);
+      }
+    });
+  }
+  
   // Create unique indexes
   if (config.uniqueIndexes && config.uniqueIndexes.length > 0) {
     print(`🔐 Creating ${config.uniqueIndexes.length} unique indexes for ${collectionName}...`);